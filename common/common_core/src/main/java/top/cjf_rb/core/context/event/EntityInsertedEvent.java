@@ -0,0 +1,14 @@
+package top.cjf_rb.core.context.event;
+
+import java.util.List;
+
+/**
+ 数据新增事件, 在新增语句执行成功后、事务提交前同步发布
+ <p>
+ 监听方不应依赖事务一定提交, 如布隆过滤器等允许误判存在的场景
+
+ @param entities 新增的实体, 批量新增时为多个
+ @author cjf
+ @since 1.0 */
+public record EntityInsertedEvent(List<Object> entities) {
+}
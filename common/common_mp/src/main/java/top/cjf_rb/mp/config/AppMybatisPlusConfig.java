@@ -15,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -96,6 +97,14 @@ public class AppMybatisPlusConfig {
         return new MybatisPlusAutofillHandler();
     }
 
+    /**
+     新增数据后发布事件, 供布隆过滤器等增量更新
+     */
+    @Bean
+    public EntityInsertedEventInterceptor entityInsertedEventInterceptor(ApplicationEventPublisher applicationEventPublisher) {
+        return new EntityInsertedEventInterceptor(applicationEventPublisher);
+    }
+
     /**
      扩展BaseMapper方法
      */
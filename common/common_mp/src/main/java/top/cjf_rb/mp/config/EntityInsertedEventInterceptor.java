@@ -0,0 +1,64 @@
+package top.cjf_rb.mp.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.context.ApplicationEventPublisher;
+import top.cjf_rb.core.context.event.EntityInsertedEvent;
+
+import java.util.*;
+
+/**
+ 新增语句执行成功后发布{@link EntityInsertedEvent}, 覆盖insert、insertIgnore及批量新增
+
+ @author cjf
+ @since 1.0 */
+@RequiredArgsConstructor
+@Intercepts({@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})})
+public class EntityInsertedEventInterceptor implements Interceptor {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        if (mappedStatement.getSqlCommandType() != SqlCommandType.INSERT || Objects.equals(result, 0)) {
+            return result;
+        }
+
+        List<Object> entities = entitiesOf(invocation.getArgs()[1]);
+        if (!entities.isEmpty()) {
+            applicationEventPublisher.publishEvent(new EntityInsertedEvent(entities));
+        }
+        return result;
+    }
+
+    /**
+     单个实体直接作为参数; 批量新增时参数为MyBatis的ParamMap, 同一个集合会以多个名称(collection/list/arg0)出现
+     */
+    private static List<Object> entitiesOf(Object parameter) {
+        if (parameter == null) {
+            return Collections.emptyList();
+        }
+        if (!(parameter instanceof Map<?, ?> params)) {
+            return List.of(parameter);
+        }
+
+        Set<Object> collections = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> entities = new ArrayList<>();
+        for (Object value : params.values()) {
+            if (value instanceof Collection<?> collection && collections.add(collection)) {
+                entities.addAll(collection);
+            }
+        }
+        return entities;
+    }
+
+}
@@ -0,0 +1,411 @@
+package top.cjf_rb.redis.bloom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import top.cjf_rb.core.context.event.EntityInsertedEvent;
+import top.cjf_rb.redis.lock.DistributedLocks;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ 布隆过滤器防护, 拦截一定不存在的标识, 避免缓存穿透到数据库
+ <ul>
+ <li>Redisson布隆过滤器为各节点共享的数据, 本地镜像用于判断, 判断不访问Redis</li>
+ <li>新增的标识写入Redis并通过发布订阅同步到各节点的本地镜像, 镜像定期全量同步, 修复丢失的通知,
+ 下载位数组期间本地新增的标识在替换前补入新镜像</li>
+ <li>本地镜像未就绪或位数组超过int范围时, 回退为访问Redis判断</li>
+ <li>增量: {@link #populateOnInsert}监听AppBasicMapper的新增, 写入Redis失败只记录日志, 不影响新增本身;
+ 全量: {@link #rebuildEvery}定期重建, 同一时间只有一个节点执行</li>
+ <li>重建期间新增的标识同时写入新旧过滤器, 各节点收到重建通知前的短暂窗口内的新增可能丢失, 直到下一次重建</li>
+ <li>启动时过滤器为空(首次部署或key丢失)且有全量数据源时立即重建, 首次重建完成前全部放行;
+ 没有全量数据源时只有启动后新增的标识会被放行</li>
+ <li>指标: bloom.filter.requests, 标签 name/result(passed|rejected)</li>
+ </ul>
+ 需声明为Spring Bean使用
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+public class BloomFilterGuard {
+
+    private static final String KEY_PREFIX = "app:bloom:";
+    private static final String REBUILD_LOCK_NAME = "bloom-rebuild";
+    private static final String REBUILD_STARTED = "\u0000rebuild-started";
+    private static final String REBUILD_FINISHED = "\u0000rebuild-finished";
+    private static final String REBUILD_FAILED = "\u0000rebuild-failed";
+    private static final String MESSAGE_SEPARATOR = "\n";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final String name;
+    private final long expectedInsertions;
+    private final double falseProbability;
+    /**
+     Redis key, 使用hash tag保证重建用的临时key在同一个slot, 可以rename
+     */
+    private final String key;
+    private final String rebuildKey;
+
+    @Resource
+    private RedissonClient redissonClient;
+    @Resource
+    private DistributedLocks distributedLocks;
+    @Resource
+    private AppRedisProperties appRedisProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Class<?> entityType;
+    private Function<Object, ? extends Serializable> idExtractor;
+    private Duration rebuildInterval;
+    private Supplier<Stream<? extends Serializable>> rebuildSource;
+
+    private RBloomFilter<String> filter;
+    private RTopic topic;
+    private ScheduledExecutorService scheduler;
+    /**
+     本地镜像, 未就绪时为null
+     */
+    private volatile LocalBloomMirror mirror;
+    /**
+     保护镜像替换与{@link #addedDuringSync}
+     */
+    private final Object mirrorLock = new Object();
+    /**
+     同步镜像期间本地新增的标识, 替换镜像前补入新镜像, 不在同步时为null
+     */
+    private List<String> addedDuringSync;
+    /**
+     其他节点正在重建, 新增的标识需同时写入重建中的过滤器
+     */
+    private volatile boolean rebuilding;
+    /**
+     过滤器已包含全部标识, 为false时全部放行
+     */
+    private volatile boolean populated = true;
+
+    /**
+     @param name               名称, 如 user
+     @param expectedInsertions 预计的元素数量
+     @param falseProbability   误判率
+     */
+    public BloomFilterGuard(String name, long expectedInsertions, double falseProbability) {
+        this.name = name;
+        this.expectedInsertions = expectedInsertions;
+        this.falseProbability = falseProbability;
+        this.key = KEY_PREFIX + "{" + name + "}";
+        this.rebuildKey = key + ":rebuild";
+    }
+
+    /**
+     监听该类型实体的新增, 将其标识加入过滤器
+
+     @param entityType  实体类型, 包含子类
+     @param idExtractor 标识的获取方法
+     @return this
+     */
+    @SuppressWarnings("unchecked")
+    public <E> BloomFilterGuard populateOnInsert(Class<E> entityType, Function<E, ? extends Serializable> idExtractor) {
+        this.entityType = entityType;
+        this.idExtractor = (Function<Object, ? extends Serializable>) idExtractor;
+        return this;
+    }
+
+    /**
+     定期全量重建, 用于清理已删除的标识, 首次重建在一个间隔之后, 启动时过滤器为空则立即重建
+
+     @param interval 重建间隔
+     @param source   全部标识, 流使用后会被关闭
+     @return this
+     */
+    public BloomFilterGuard rebuildEvery(Duration interval, Supplier<Stream<? extends Serializable>> source) {
+        this.rebuildInterval = interval;
+        this.rebuildSource = source;
+        return this;
+    }
+
+    @PostConstruct
+    public void init() {
+        filter = redissonClient.getBloomFilter(key, StringCodec.INSTANCE);
+        boolean empty = filter.tryInit(expectedInsertions, falseProbability) || filter.count() == 0;
+        if (empty && rebuildSource != null) {
+            populated = false;
+        } else if (empty) {
+            log.warn("Bloom filter [{}] is empty and has no rebuild source, identifiers that existed before startup "
+                     + "will be rejected until they are put again", name);
+        }
+
+        topic = redissonClient.getTopic(key, StringCodec.INSTANCE);
+        topic.addListener(String.class, (channel, message) -> this.onMessage(message));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                     .name("bloom-filter-" + name)
+                                                                     .daemon()
+                                                                     .factory());
+        scheduler.execute(this::syncMirror);
+        if (!populated) {
+            scheduler.execute(this::rebuildQuietly);
+        }
+        long syncInterval = appRedisProperties.getBloomFilter()
+                                              .getMirrorSyncInterval()
+                                              .toMillis();
+        scheduler.scheduleWithFixedDelay(this::syncMirror, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        if (rebuildSource != null) {
+            long interval = rebuildInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (topic != null) {
+            topic.removeAllListeners();
+        }
+    }
+
+    /**
+     标识是否可能存在
+
+     @param identifier 标识
+     @return false表示一定不存在, 首次重建完成前总是true
+     */
+    public boolean mightContain(@NonNull Serializable identifier) {
+        if (!populated) {
+            this.count(true);
+            return true;
+        }
+
+        String value = identifier.toString();
+        LocalBloomMirror current = mirror;
+        boolean contains = current != null ? current.mightContain(value) : filter.contains(value);
+        this.count(contains);
+        return contains;
+    }
+
+    /**
+     加入标识
+
+     @param identifier 标识
+     */
+    public void put(@NonNull Serializable identifier) {
+        this.putAll(List.of(identifier));
+    }
+
+    /**
+     批量加入标识
+
+     @param identifiers 标识
+     */
+    public void putAll(@NonNull Collection<? extends Serializable> identifiers) {
+        if (identifiers.isEmpty()) {
+            return;
+        }
+
+        List<String> values = identifiers.stream()
+                                         .map(Object::toString)
+                                         .toList();
+        try {
+            filter.add(values);
+            if (rebuilding) {
+                try {
+                    redissonClient.<String>getBloomFilter(rebuildKey, StringCodec.INSTANCE)
+                                  .add(values);
+                } catch (Exception e) {
+                    // 重建完成后这些标识会被误拦截, 直到下一次重建
+                    log.warn("Bloom filter [{}] failed to add {} identifiers to the rebuilding filter", name,
+                             values.size(), e);
+                }
+            }
+        } finally {
+            // 写入Redis失败时本节点仍然放行, 下一次同步镜像前有效
+            this.putLocal(values);
+        }
+        topic.publish(String.join(MESSAGE_SEPARATOR, values));
+    }
+
+    /**
+     立即全量重建, 其他节点正在重建时直接返回
+
+     @return 是否执行了重建
+     */
+    public boolean rebuild() {
+        if (rebuildSource == null) {
+            throw new IllegalStateException("Bloom filter [" + name + "] has no rebuild source");
+        }
+
+        return distributedLocks.tryLock(REBUILD_LOCK_NAME, name, Duration.ZERO)
+                               .map(handle -> {
+                                   try (handle) {
+                                       this.doRebuild();
+                                       return true;
+                                   }
+                               })
+                               .orElse(false);
+    }
+
+    @EventListener
+    public void onEntityInserted(EntityInsertedEvent event) {
+        if (entityType == null) {
+            return;
+        }
+
+        List<Serializable> identifiers = new ArrayList<>();
+        for (Object entity : event.entities()) {
+            if (entityType.isInstance(entity)) {
+                Serializable identifier = idExtractor.apply(entity);
+                if (identifier != null) {
+                    identifiers.add(identifier);
+                }
+            }
+        }
+        // 在新增的SQL执行过程中同步调用, 异常会导致新增失败
+        try {
+            this.putAll(identifiers);
+        } catch (Exception e) {
+            log.warn("Bloom filter [{}] failed to add {} inserted identifiers", name, identifiers.size(), e);
+        }
+    }
+
+    private void doRebuild() {
+        RBloomFilter<String> target = redissonClient.getBloomFilter(rebuildKey, StringCodec.INSTANCE);
+        target.delete();
+        target.tryInit(expectedInsertions, falseProbability);
+
+        // 先通知各节点双写, 再读取数据源, 读取期间的新增不会丢失
+        rebuilding = true;
+        topic.publish(REBUILD_STARTED);
+        boolean rebuilt = false;
+        try (Stream<? extends Serializable> identifiers = rebuildSource.get()) {
+            List<String> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+            identifiers.forEach(identifier -> {
+                batch.add(identifier.toString());
+                if (batch.size() >= REBUILD_BATCH_SIZE) {
+                    target.add(batch);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                target.add(batch);
+            }
+
+            target.rename(key);
+            rebuilt = true;
+            populated = true;
+        } finally {
+            rebuilding = false;
+            topic.publish(rebuilt ? REBUILD_FINISHED : REBUILD_FAILED);
+        }
+        log.info("Bloom filter [{}] rebuilt", name);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            this.rebuild();
+        } catch (Exception e) {
+            log.warn("Bloom filter [{}] rebuild failed", name, e);
+        }
+    }
+
+    private void onMessage(String message) {
+        switch (message) {
+            case REBUILD_STARTED -> rebuilding = true;
+            case REBUILD_FINISHED -> {
+                rebuilding = false;
+                populated = true;
+                scheduler.execute(this::syncMirror);
+            }
+            case REBUILD_FAILED -> {
+                rebuilding = false;
+                scheduler.execute(this::syncMirror);
+            }
+            default -> this.putLocal(List.of(message.split(MESSAGE_SEPARATOR)));
+        }
+    }
+
+    /**
+     加入本地镜像, 正在同步时同时记录, 替换镜像前补入
+     */
+    private void putLocal(List<String> values) {
+        synchronized (mirrorLock) {
+            LocalBloomMirror current = mirror;
+            if (current != null) {
+                values.forEach(current::put);
+            }
+            if (addedDuringSync != null) {
+                addedDuringSync.addAll(values);
+            }
+        }
+    }
+
+    /**
+     从Redis下载位数组, 替换本地镜像
+     */
+    private void syncMirror() {
+        synchronized (mirrorLock) {
+            addedDuringSync = new ArrayList<>();
+        }
+        try {
+            long size = filter.getSize();
+            // BitSet的下标为int
+            if (size > Integer.MAX_VALUE) {
+                mirror = null;
+                return;
+            }
+
+            long[] words = redissonClient.getBitSet(key)
+                                         .asBitSet()
+                                         .toLongArray();
+            LocalBloomMirror synced = new LocalBloomMirror(size, filter.getHashIterations(), words);
+            synchronized (mirrorLock) {
+                // 下载的位数组可能不包含下载期间的新增
+                addedDuringSync.forEach(synced::put);
+                mirror = synced;
+            }
+        } catch (Exception e) {
+            // 保留旧的镜像, 下次同步重试
+            log.warn("Bloom filter [{}] mirror sync failed", name, e);
+        } finally {
+            synchronized (mirrorLock) {
+                addedDuringSync = null;
+            }
+        }
+    }
+
+    private void count(boolean passed) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Counter.builder("bloom.filter.requests")
+               .description("布隆过滤器判断次数")
+               .tag("name", name)
+               .tag("result", passed ? "passed" : "rejected")
+               .register(meterRegistry)
+               .increment();
+    }
+
+}
@@ -0,0 +1,79 @@
+package top.cjf_rb.redis.bloom;
+
+import io.netty.buffer.ByteBuf;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.misc.Hash;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ Redisson布隆过滤器的本地镜像
+ <ul>
+ <li>位下标的计算与RedissonBloomFilter一致: StringCodec编码后HighwayHash 128位, 再做双重哈希取模</li>
+ <li>位数组可并发读写, 设置位不加锁</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+class LocalBloomMirror {
+
+    private final long size;
+    private final int hashIterations;
+    private final AtomicLongArray words;
+
+    /**
+     @param size           位数组长度
+     @param hashIterations 哈希次数
+     @param words          Redis位数组, 与{@link java.util.BitSet#toLongArray()}的布局一致
+     */
+    LocalBloomMirror(long size, int hashIterations, long[] words) {
+        this.size = size;
+        this.hashIterations = hashIterations;
+        long[] copy = new long[(int) ((size + 63) >>> 6)];
+        System.arraycopy(words, 0, copy, 0, Math.min(words.length, copy.length));
+        this.words = new AtomicLongArray(copy);
+    }
+
+    boolean mightContain(String value) {
+        for (long index : this.indexes(value)) {
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(String value) {
+        for (long index : this.indexes(value)) {
+            long mask = 1L << index;
+            words.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+        }
+    }
+
+    private long[] indexes(String value) {
+        long[] hash;
+        ByteBuf state;
+        try {
+            state = StringCodec.INSTANCE.getValueEncoder()
+                                        .encode(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            hash = Hash.hash128(state);
+        } finally {
+            state.release();
+        }
+
+        long[] indexes = new long[hashIterations];
+        long combined = hash[0];
+        for (int i = 0; i < hashIterations; i++) {
+            indexes[i] = (combined & Long.MAX_VALUE) % size;
+            combined += i % 2 == 0 ? hash[1] : hash[0];
+        }
+        return indexes;
+    }
+
+}
@@ -0,0 +1,33 @@
+package top.cjf_rb.redis.config;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import top.cjf_rb.redis.lock.DistributedLock;
+import top.cjf_rb.redis.lock.DistributedLockInterceptor;
+import top.cjf_rb.redis.lock.DistributedLocks;
+
+/**
+ 注册{@link DistributedLock}注解的切面
+ <p>
+ 作为基础设施Advisor注册, 不依赖AspectJ, 由Spring Boot默认的自动代理生效
+
+ @author cjf
+ @since 1.0 */
+@Configuration(proxyBeanMethods = false)
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+public class AppDistributedLockConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor distributedLockAdvisor(ObjectProvider<DistributedLocks> distributedLocks) {
+        AnnotationMatchingPointcut pointcut = new AnnotationMatchingPointcut(null, DistributedLock.class, true);
+        return new DefaultPointcutAdvisor(pointcut, new DistributedLockInterceptor(distributedLocks));
+    }
+
+}
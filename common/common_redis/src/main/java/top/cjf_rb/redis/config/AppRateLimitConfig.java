@@ -0,0 +1,27 @@
+package top.cjf_rb.redis.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import top.cjf_rb.redis.ratelimit.RateLimitInterceptor;
+
+/**
+ 注册{@link top.cjf_rb.redis.ratelimit.RateLimit}注解的拦截器
+
+ @author cjf
+ @since 1.0 */
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AppRateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+    }
+
+}
@@ -2,8 +2,10 @@ package top.cjf_rb.redis.config;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.cache.CacheProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -11,11 +13,17 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+import top.cjf_rb.redis.serializer.*;
 
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -26,7 +34,13 @@ import java.util.List;
 @EnableConfigurationProperties({CacheProperties.class})
 public class AppRedisConfig {
 
+    /**
+     * 类型标识的属性名
+     */
+    private static final String TYPE_PROPERTY = "@class";
+
     private final CacheProperties cacheProperties;
+    private final AppRedisProperties appRedisProperties;
 
 
     /**
@@ -38,7 +52,7 @@ public class AppRedisConfig {
     @Autowired
     public void customizeRedisTemplate(RedisTemplate<Object, Object> template,
                                        RedisConnectionFactory redisConnectionFactory,
-                                       @Lazy GenericJackson2JsonRedisSerializer jsonRedisSerializer) {
+                                       @Lazy RedisValueCodec redisValueSerializer) {
         //RedisTemplate<Object, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
 
@@ -46,23 +60,66 @@ public class AppRedisConfig {
         template.setKeySerializer(template.getStringSerializer());
         template.setHashKeySerializer(template.getStringSerializer());
 
-        // redis value 使用GenericJackson2JsonRedisSerializer 序列化器
-        template.setValueSerializer(jsonRedisSerializer);
-        template.setHashValueSerializer(jsonRedisSerializer);
+        // redis value 使用可配置格式的序列化器, 默认JSON
+        template.setValueSerializer(redisValueSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
+    }
+
+    @Bean
+    public JsonRedisValueFormat jsonRedisValueFormat() {
+        return new JsonRedisValueFormat();
+    }
+
+    @Bean
+    public SmileRedisValueFormat smileRedisValueFormat() {
+        return new SmileRedisValueFormat();
     }
 
+    /**
+     * RedisTemplate 与 Spring cache 使用的 value 序列化器
+     * <ul>
+     *     <li>写入格式由 app.redis.serializer.format 决定, 读取时自动识别, 兼容旧的JSON数据</li>
+     *     <li>app.redis.serializer.type-ids 中注册的类型写入短标识, 其余类型仍写入全限定类名</li>
+     * </ul>
+     */
     @Bean
-    public GenericJackson2JsonRedisSerializer
-    jackson2JsonRedisSerializer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    public RedisValueCodec redisValueSerializer(Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                                RedisValueCodecFactory redisValueCodecFactory) {
         ObjectMapper objectMapper = objectMapperBuilder.build();
         /*
          * 开启反序列化类型转换, 序列化增加泛型信息
          * DefaultTyping.NON_FINAL: 非final类型字段在序列化时加上类型信息
-         * JsonTypeInfo.As.PROPERTY: 序列化时, 包含对象class类型信息
+         * JsonTypeInfo.As.PROPERTY: 序列化时, 包含对象类型标识, 属性名与原先的全限定类名保持一致
          */
-        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(),
-                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
-        return new GenericJackson2JsonRedisSerializer(objectMapper);
+        PolymorphicTypeValidator typeValidator = objectMapper.getPolymorphicTypeValidator();
+        RegistryTypeIdResolver typeIdResolver = new RegistryTypeIdResolver(appRedisProperties.getSerializer()
+                                                                                             .getTypeIds(),
+                                                                           typeValidator);
+        JsonTypeInfo.Value typeInfo = JsonTypeInfo.Value.construct(JsonTypeInfo.Id.CUSTOM, JsonTypeInfo.As.PROPERTY,
+                                                                   TYPE_PROPERTY, null, false, null);
+        objectMapper.setDefaultTyping(new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL,
+                                                                                  typeValidator).init(typeInfo,
+                                                                                                      typeIdResolver));
+        // 与 GenericJackson2JsonRedisSerializer 一致, 支持缓存空值
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, TYPE_PROPERTY);
+        return redisValueCodecFactory.create(objectMapper);
+    }
+
+    /**
+     * 响应式RedisTemplate, 供WebFlux/网关使用
+     * key 使用字符串序列化器, value 与 RedisTemplate 共用序列化器, 两者可读写同一份数据
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "appReactiveRedisTemplate")
+    public ReactiveRedisTemplate<String, Object> appReactiveRedisTemplate(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                          RedisValueCodec redisValueSerializer) {
+        RedisSerializationContext<String, Object> serializationContext =
+                RedisSerializationContext.<String, Object>newSerializationContext(RedisSerializer.string())
+                                         .value(redisValueSerializer)
+                                         .hashKey(RedisSerializer.string())
+                                         .hashValue(redisValueSerializer)
+                                         .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
     }
 
     /**
@@ -74,10 +131,10 @@ public class AppRedisConfig {
      */
     @Bean
     public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
-                                          GenericJackson2JsonRedisSerializer jsonRedisSerializer) {
+                                          RedisValueCodec redisValueSerializer) {
         // 设置默认的缓存配置
         RedisCacheManager.RedisCacheManagerBuilder builder =
-                RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(defaultCacheConfig(jsonRedisSerializer));
+                RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(defaultCacheConfig(redisValueSerializer));
 
         List<String> cacheNames = cacheProperties.getCacheNames();
         if (!cacheNames.isEmpty()) {
@@ -93,12 +150,26 @@ public class AppRedisConfig {
         return builder.build();
     }
 
+    /**
+     * Redis 发布/订阅的监听容器, 供缓存失效广播等场景使用
+     *
+     * @param redisConnectionFactory RedisConnectionFactory
+     * @return RedisMessageListenerContainer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
     /**
      * 默认缓存配置
      *
      * @return RedisCacheConfiguration
      */
-    private RedisCacheConfiguration defaultCacheConfig(GenericJackson2JsonRedisSerializer jsonRedisSerializer) {
+    private RedisCacheConfiguration defaultCacheConfig(RedisSerializer<Object> redisValueSerializer) {
         // 获取Redis缓存配置属性
         CacheProperties.Redis redisProperties = this.cacheProperties.getRedis();
 
@@ -107,7 +178,7 @@ public class AppRedisConfig {
 
         // 设置Redis缓存配置的序列化器
         config =
-                config.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonRedisSerializer));
+                config.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer));
         // 如果Redis缓存配置属性中设置了TTL，则设置Redis缓存配置的TTL
         if (redisProperties.getTimeToLive() != null) {
             config = config.entryTtl(redisProperties.getTimeToLive());
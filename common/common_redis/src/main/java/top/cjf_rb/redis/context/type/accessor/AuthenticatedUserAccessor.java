@@ -1,22 +1,70 @@
 package top.cjf_rb.redis.context.type.accessor;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.NonNull;
+import org.springframework.security.core.GrantedAuthority;
 import top.cjf_rb.core.context.AuthenticatedUser;
+import top.cjf_rb.redis.serializer.RedisValueCodec;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Optional;
+import java.util.*;
 
 /**
  当前用户的缓存信息
+ <ul>
+ <li>以Hash存储, 每个属性一个field, 修改单个属性只需一次HSET, 不存在读-改-写的竞争</li>
+ <li>读取时HGETALL后按属性逐个解码, 不经过整个对象的JSON</li>
+ <li>兼容旧的字符串存储: 读取时自动回退, 批量读取时旧的key单独再读取一次, 修改或重新写入时转换为Hash</li>
+ </ul>
 
  @author cjf
  @since 1.0 */
 public class AuthenticatedUserAccessor extends RedisPrefixAccessor<AuthenticatedUser> {
 
-    private final String phoneNoKey = "phoneNo";
-    private final String nameKey = "name";
-    private final String statusKey = "status";
+    private static final String useridKey = "userid";
+    private static final String nameKey = "name";
+    private static final String passwordKey = "password";
+    private static final String phoneNoKey = "phoneNo";
+    private static final String authoritiesKey = "authorities";
+    private static final String accountNonExpiredKey = "accountNonExpired";
+    private static final String accountNonLockedKey = "accountNonLocked";
+    private static final String credentialsNonExpiredKey = "credentialsNonExpired";
+    private static final String statusKey = "enabled";
+    private static final String virtualKey = "virtual";
+    private static final String detailsKey = "details";
+
+    private static final TypeReference<Set<GrantedAuthority>> AUTHORITIES_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     整体替换Hash并设置有效期
+     ARGV[1]: 1表示仅在key不存在时写入, ARGV[2]: 有效期(毫秒), ARGV[3...]: field/value交替
+     */
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[1] == '1' and redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+                    "redis.call('DEL', KEYS[1]) " +
+                    "redis.call('HSET', KEYS[1], unpack(ARGV, 3)) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                    "return 1", Long.class);
+    /**
+     key存在时修改单个field, 避免已过期的用户被写回一个不完整且没有有效期的Hash
+     ARGV[1]: field, ARGV[2]: value
+     */
+    private static final DefaultRedisScript<Long> UPDATE_FIELD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+                    "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "return 1", Long.class);
+
+    @Resource
+    private RedisValueCodec redisValueSerializer;
 
     /**
      @param expires 有效期
@@ -33,6 +81,47 @@ public class AuthenticatedUserAccessor extends RedisPrefixAccessor<Authenticated
         super(prefix, expires);
     }
 
+    @Override
+    public Optional<AuthenticatedUser> get(@NonNull Serializable identifier) {
+        String key = keyPrefix + identifier;
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Map<byte[], byte[]> fields = redisMetrics.time("get", keyPrefix, () -> redisTemplate.execute(
+                    (RedisCallback<Map<byte[], byte[]>>) connection -> connection.hashCommands()
+                                                                                 .hGetAll(rawKey)));
+            if (fields != null && redisMetrics.isEnabled()) {
+                redisMetrics.payload("get", keyPrefix, fields.values()
+                                                             .stream()
+                                                             .mapToLong(value -> value.length)
+                                                             .sum());
+            }
+            return Optional.ofNullable(this.decode(fields));
+        } catch (DataAccessException e) {
+            if (isWrongType(e)) {
+                return super.get(identifier);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void set(@NonNull Serializable identifier, AuthenticatedUser content) {
+        if (content == null) {
+            this.clear(identifier);
+            return;
+        }
+        this.replace(identifier, content, false);
+    }
+
+    @Override
+    public void setIfAbsent(@NonNull Serializable identifier, AuthenticatedUser content) {
+        if (content == null) {
+            return;
+        }
+        this.replace(identifier, content, true);
+    }
+
     /**
      设置用户名
 
@@ -60,28 +149,229 @@ public class AuthenticatedUserAccessor extends RedisPrefixAccessor<Authenticated
         this.setValue(identifier, newStatus, statusKey);
     }
 
+    @Override
+    protected CachedValue<AuthenticatedUser> getWithTtl(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+
+        List<Object> results;
+        try {
+            results = redisMetrics.time("getWithTtl", keyPrefix, () -> redisTemplate.execute(
+                    (RedisCallback<List<Object>>) connection -> {
+                        connection.openPipeline();
+                        connection.hashCommands()
+                                  .hGetAll(rawKey);
+                        connection.keyCommands()
+                                  .pTtl(rawKey);
+                        return connection.closePipeline();
+                    }));
+        } catch (DataAccessException e) {
+            if (isWrongType(e)) {
+                return super.getWithTtl(key);
+            }
+            throw e;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<byte[], byte[]> fields = (Map<byte[], byte[]>) results.get(0);
+        Long ttl = (Long) results.get(1);
+        return new CachedValue<>(this.decode(fields), ttl == null ? -2 : ttl);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<AuthenticatedUser> multiGetValues(List<Serializable> keys) {
+        List<Object> results = redisMetrics.time("multiGet", keyPrefix, () -> redisTemplate.execute(
+                (RedisCallback<List<Object>>) connection -> {
+                    connection.openPipeline();
+                    for (Serializable key : keys) {
+                        connection.hashCommands()
+                                  .hGetAll(key.toString()
+                                              .getBytes(StandardCharsets.UTF_8));
+                    }
+                    try {
+                        return connection.closePipeline();
+                    } catch (RedisPipelineException e) {
+                        // 有命令失败时closePipeline抛出异常, 其余命令的结果仍然可用, 失败的位置为异常对象
+                        return e.getPipelineResult();
+                    }
+                }));
+        if (results == null) {
+            return Collections.emptyList();
+        }
+
+        AuthenticatedUser[] users = new AuthenticatedUser[results.size()];
+        List<Integer> legacyIndexes = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            Object result = results.get(i);
+            if (result instanceof Map<?, ?> fields) {
+                users[i] = this.decode((Map<byte[], byte[]>) fields);
+            } else if (result instanceof Throwable e) {
+                if (!isWrongType(e)) {
+                    throw e instanceof RuntimeException runtimeException ? runtimeException
+                            : new IllegalStateException(e);
+                }
+                legacyIndexes.add(i);
+            }
+        }
+
+        // 旧的字符串存储, 按字符串批量读取
+        if (!legacyIndexes.isEmpty()) {
+            List<Serializable> legacyKeys = legacyIndexes.stream()
+                                                         .map(keys::get)
+                                                         .toList();
+            List<AuthenticatedUser> legacyUsers = redisMetrics.time("multiGet", keyPrefix,
+                                                                    () -> redisTemplate.opsForValue()
+                                                                                       .multiGet(legacyKeys));
+            if (legacyUsers != null) {
+                for (int i = 0; i < legacyIndexes.size(); i++) {
+                    users[legacyIndexes.get(i)] = legacyUsers.get(i);
+                }
+            }
+        }
+
+        return Arrays.stream(users)
+                     .filter(Objects::nonNull)
+                     .toList();
+    }
+
     /**
      重新设置值
      */
     private void setValue(Serializable identifier, Object value, String fieldKey) {
         String key = keyPrefix + identifier;
 
-        Optional<AuthenticatedUser> optional = this.get(identifier);
-        if (optional.isEmpty()) {
-            return;
+        try {
+            byte[] rawValue = redisValueSerializer.serialize(value);
+            redisMetrics.payload("setField", keyPrefix, rawValue.length);
+            redisMetrics.time("setField", keyPrefix, () -> redisTemplate.execute(
+                    UPDATE_FIELD_SCRIPT, RedisSerializer.byteArray(), null, List.of(key),
+                    fieldKey.getBytes(StandardCharsets.UTF_8), rawValue));
+        } catch (DataAccessException e) {
+            if (!isWrongType(e)) {
+                throw e;
+            }
+
+            // 旧的字符串存储, 修改后整体转换为Hash
+            super.get(identifier)
+                 .ifPresent(authenticatedUser -> {
+                     apply(authenticatedUser, fieldKey, value);
+                     this.set(identifier, authenticatedUser);
+                 });
+        } finally {
+            this.invalidateHotKey(key);
         }
+    }
 
-        AuthenticatedUser authenticatedUser = optional.get();
-        // 重设值
-        if (phoneNoKey.equals(fieldKey)) {
-            authenticatedUser.setPhoneNo((String) value);
-        } else if (nameKey.equals(fieldKey)) {
-            authenticatedUser.setName((String) value);
-        } else if (statusKey.equals(fieldKey)) {
-            authenticatedUser.setEnabled((Boolean) value);
+    private void replace(Serializable identifier, AuthenticatedUser content, boolean onlyIfAbsent) {
+        String key = keyPrefix + identifier;
+
+        String command = onlyIfAbsent ? "setIfAbsent" : "set";
+        long[] payload = {0};
+        List<byte[]> args = new ArrayList<>(24);
+        args.add((onlyIfAbsent ? "1" : "0").getBytes(StandardCharsets.UTF_8));
+        args.add(String.valueOf(expired.toMillis())
+                       .getBytes(StandardCharsets.UTF_8));
+        this.encode(content)
+            .forEach((field, value) -> {
+                args.add(field.getBytes(StandardCharsets.UTF_8));
+                args.add(value);
+                payload[0] += value.length;
+            });
+        redisMetrics.payload(command, keyPrefix, payload[0]);
+
+        try {
+            redisMetrics.time(command, keyPrefix, () -> redisTemplate.execute(
+                    REPLACE_SCRIPT, RedisSerializer.byteArray(), null, List.of(key), args.toArray()));
+        } finally {
+            this.invalidateHotKey(key);
         }
+    }
 
-        this.set(key, authenticatedUser);
+    /**
+     每个非空属性编码为一个field
+     */
+    private Map<String, byte[]> encode(AuthenticatedUser user) {
+        Map<String, Object> values = new LinkedHashMap<>(16);
+        values.put(useridKey, user.getUserid());
+        values.put(nameKey, user.getName());
+        values.put(passwordKey, user.getPassword());
+        values.put(phoneNoKey, user.getPhoneNo());
+        values.put(authoritiesKey, user.getAuthorities());
+        values.put(accountNonExpiredKey, user.isAccountNonExpired());
+        values.put(accountNonLockedKey, user.isAccountNonLocked());
+        values.put(credentialsNonExpiredKey, user.isCredentialsNonExpired());
+        values.put(statusKey, user.isEnabled());
+        values.put(virtualKey, user.isVirtual());
+        values.put(detailsKey, user.getDetails());
+
+        Map<String, byte[]> fields = new LinkedHashMap<>(16);
+        values.forEach((field, value) -> {
+            if (value != null) {
+                fields.put(field, redisValueSerializer.serialize(value));
+            }
+        });
+        return fields;
+    }
+
+    /**
+     按属性逐个解码, 未知的field忽略
+
+     @return 没有任何field时返回null
+     */
+    private AuthenticatedUser decode(Map<byte[], byte[]> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        fields.forEach((rawField, rawValue) -> {
+            String field = new String(rawField, StandardCharsets.UTF_8);
+            Object value = switch (field) {
+                case useridKey -> redisValueSerializer.deserialize(rawValue, Long.class);
+                case nameKey, passwordKey, phoneNoKey -> redisValueSerializer.deserialize(rawValue, String.class);
+                case authoritiesKey -> redisValueSerializer.deserialize(rawValue, AUTHORITIES_TYPE);
+                case accountNonExpiredKey, accountNonLockedKey, credentialsNonExpiredKey, statusKey, virtualKey ->
+                        redisValueSerializer.deserialize(rawValue, Boolean.class);
+                case detailsKey -> redisValueSerializer.deserialize(rawValue, Object.class);
+                default -> null;
+            };
+            if (value != null) {
+                apply(user, field, value);
+            }
+        });
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void apply(AuthenticatedUser user, String field, Object value) {
+        switch (field) {
+            case useridKey -> user.setUserid((Long) value);
+            case nameKey -> user.setName((String) value);
+            case passwordKey -> user.setPassword((String) value);
+            case phoneNoKey -> user.setPhoneNo((String) value);
+            case authoritiesKey -> user.setAuthorities((Set<GrantedAuthority>) value);
+            case accountNonExpiredKey -> user.setAccountNonExpired((Boolean) value);
+            case accountNonLockedKey -> user.setAccountNonLocked((Boolean) value);
+            case credentialsNonExpiredKey -> user.setCredentialsNonExpired((Boolean) value);
+            case statusKey -> user.setEnabled((Boolean) value);
+            case virtualKey -> user.setVirtual((Boolean) value);
+            case detailsKey -> user.setDetails(value);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     key是旧的字符串存储
+     */
+    private static boolean isWrongType(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.contains("WRONGTYPE")) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
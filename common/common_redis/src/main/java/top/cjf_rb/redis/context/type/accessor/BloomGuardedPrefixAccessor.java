@@ -0,0 +1,71 @@
+package top.cjf_rb.redis.context.type.accessor;
+
+import org.springframework.lang.NonNull;
+import top.cjf_rb.redis.bloom.BloomFilterGuard;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ 带布隆过滤器防护的存取器
+ <ul>
+ <li>读取前先判断标识是否可能存在, 一定不存在时直接返回, 不访问Redis, getOrLoad也不会调用loader</li>
+ <li>写入缓存时将标识加入过滤器</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+public class BloomGuardedPrefixAccessor<T> implements PrefixCacheAccessor<T> {
+
+    private final PrefixCacheAccessor<T> delegate;
+    private final BloomFilterGuard guard;
+
+    /**
+     @param delegate 被防护的存取器
+     @param guard    布隆过滤器
+     */
+    public BloomGuardedPrefixAccessor(PrefixCacheAccessor<T> delegate, BloomFilterGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public Optional<T> get(@NonNull Serializable identifier) {
+        if (!guard.mightContain(identifier)) {
+            return Optional.empty();
+        }
+        return delegate.get(identifier);
+    }
+
+    @Override
+    public Optional<T> getOrLoad(@NonNull Serializable identifier, @NonNull Supplier<T> loader) {
+        if (!guard.mightContain(identifier)) {
+            return Optional.empty();
+        }
+        return delegate.getOrLoad(identifier, loader);
+    }
+
+    @Override
+    public void set(@NonNull Serializable identifier, T content) {
+        guard.put(identifier);
+        delegate.set(identifier, content);
+    }
+
+    @Override
+    public void setIfAbsent(@NonNull Serializable identifier, T content) {
+        guard.put(identifier);
+        delegate.setIfAbsent(identifier, content);
+    }
+
+    @Override
+    public boolean exists(@NonNull Serializable identifier) {
+        return guard.mightContain(identifier) && delegate.exists(identifier);
+    }
+
+    @Override
+    public void clear(@NonNull Serializable identifier) {
+        delegate.clear(identifier);
+    }
+
+}
@@ -0,0 +1,235 @@
+package top.cjf_rb.redis.context.type.accessor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import top.cjf_rb.core.constant.SeparatorEnum;
+import top.cjf_rb.core.util.Identifiers;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ 二级缓存存取器, 本地Caffeine缓存(L1) + Redis(L2)
+ <ul>
+ <li>本地缓存容量有限, 每条的过期时间为与值一同读取的Redis剩余有效期, 且不超过本地缓存有效期</li>
+ <li>任意节点调用set/setIfAbsent/clear时, 通过Redis发布/订阅通知所有节点清除本地缓存</li>
+ <li>未命中时从Redis读取后回填本地缓存, 读取期间有失效发生时不回填, 避免写回已被覆盖的旧值</li>
+ <li>存在MeterRegistry时, 暴露本地缓存的命中/未命中/淘汰次数</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+public class NearCachePrefixAccessor<T> extends RedisPrefixAccessor<T> implements MessageListener {
+
+    private static final String CHANNEL_PREFIX = "app:near-cache:invalidate:";
+
+    /**
+     当前节点标识, 用于忽略自身发出的失效通知
+     */
+    private final String nodeId = Identifiers.uuid();
+    private final ChannelTopic topic;
+    /**
+     本地缓存有效期的上限
+     */
+    private final Duration localExpired;
+    private final Cache<String, LocalEntry<T>> localCache;
+    /**
+     失效版本号, 每次本地或远程失效时递增, 用于丢弃读取期间已失效的值
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     @param prefix      key前缀
+     @param expired     有效期
+     @param maximumSize 本地缓存最大条数
+     */
+    public NearCachePrefixAccessor(String prefix, Duration expired, long maximumSize) {
+        this(prefix, expired, maximumSize, expired);
+    }
+
+    /**
+     @param prefix       key前缀
+     @param expired      有效期
+     @param maximumSize  本地缓存最大条数
+     @param localExpired 本地缓存有效期, 超过expired时以expired为准
+     */
+    public NearCachePrefixAccessor(String prefix, Duration expired, long maximumSize, Duration localExpired) {
+        super(prefix, expired);
+        this.topic = new ChannelTopic(CHANNEL_PREFIX + keyPrefix);
+        this.localExpired = localExpired.compareTo(expired) > 0 ? expired : localExpired;
+        this.localCache = Caffeine.newBuilder()
+                                  .maximumSize(maximumSize)
+                                  .expireAfter(Expiry.<String, LocalEntry<T>>writing((key, entry) -> entry.ttl()))
+                                  .recordStats()
+                                  .build();
+    }
+
+    @PostConstruct
+    private void init() {
+        redisMessageListenerContainer.addMessageListener(this, topic);
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, "near-cache", "prefix", keyPrefix);
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        redisMessageListenerContainer.removeMessageListener(this, topic);
+    }
+
+    @Override
+    public void set(@NonNull Serializable identifier, T content) {
+        super.set(identifier, content);
+
+        String localKey = identifier.toString();
+        epoch.incrementAndGet();
+        if (content == null) {
+            localCache.invalidate(localKey);
+        } else {
+            localCache.put(localKey, new LocalEntry<>(content, localExpired));
+        }
+        this.publishInvalidation(localKey);
+    }
+
+    @Override
+    public void setIfAbsent(@NonNull Serializable identifier, T content) {
+        super.setIfAbsent(identifier, content);
+
+        // 无法确定是否写入成功, 清除本地缓存以便下次从Redis加载
+        String localKey = identifier.toString();
+        this.invalidateLocal(localKey);
+        this.publishInvalidation(localKey);
+    }
+
+    @Override
+    public Optional<T> get(@NonNull Serializable identifier) {
+        String localKey = identifier.toString();
+
+        LocalEntry<T> entry = localCache.getIfPresent(localKey);
+        if (entry != null) {
+            return Optional.of(entry.value());
+        }
+
+        long snapshot = epoch.get();
+        CachedValue<T> cached = this.getWithTtl(keyPrefix + identifier);
+        this.fill(localKey, cached, snapshot);
+        return Optional.ofNullable(cached.value());
+    }
+
+    @Override
+    public Optional<T> getOrLoad(@NonNull Serializable identifier, @NonNull Supplier<T> loader) {
+        String localKey = identifier.toString();
+
+        LocalEntry<T> entry = localCache.getIfPresent(localKey);
+        if (entry != null) {
+            return Optional.of(entry.value());
+        }
+
+        long snapshot = epoch.get();
+        CachedValue<T> cached = this.getOrLoadWithTtl(identifier, loader);
+        this.fill(localKey, cached, snapshot);
+        return Optional.ofNullable(cached.value());
+    }
+
+    @Override
+    public void clear(@NonNull Serializable identifier) {
+        super.clear(identifier);
+
+        String localKey = identifier.toString();
+        this.invalidateLocal(localKey);
+        this.publishInvalidation(localKey);
+    }
+
+    /**
+     接收其他节点的失效通知, 消息格式为: nodeId:identifier
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(SeparatorEnum.COLON.getSeparator());
+        if (index < 0) {
+            return;
+        }
+
+        // 忽略自身发出的通知
+        if (nodeId.equals(body.substring(0, index))) {
+            return;
+        }
+
+        this.invalidateLocal(body.substring(index + 1));
+    }
+
+    /**
+     回填本地缓存, 读取后有失效发生时放弃, 检查与写入在同一个key的锁内完成, 不会与并发的失效交错;
+     有效期为读取时的Redis剩余有效期, 未设置有效期时为本地缓存有效期
+
+     @param cached   从Redis读取的值及剩余有效期
+     @param snapshot 读取Redis前的失效版本号
+     */
+    private void fill(String localKey, CachedValue<T> cached, long snapshot) {
+        // ttl为-2时key已不存在
+        if (cached.value() == null || cached.ttl() == 0 || cached.ttl() < -1) {
+            return;
+        }
+
+        Duration ttl = cached.ttl() < 0 ? localExpired : Duration.ofMillis(cached.ttl());
+        LocalEntry<T> entry = new LocalEntry<>(cached.value(), ttl.compareTo(localExpired) > 0 ? localExpired : ttl);
+        localCache.asMap()
+                  .compute(localKey, (key, existing) -> epoch.get() == snapshot ? entry : existing);
+    }
+
+    /**
+     先递增版本号再清除, 进行中的读取不会回填旧值
+     */
+    private void invalidateLocal(String localKey) {
+        epoch.incrementAndGet();
+        localCache.invalidate(localKey);
+    }
+
+    /**
+     广播本地缓存失效通知
+     */
+    private void publishInvalidation(String localKey) {
+        try {
+            stringRedisTemplate.convertAndSend(topic.getTopic(), nodeId + SeparatorEnum.COLON.getSeparator() + localKey);
+        } catch (Exception e) {
+            log.warn("本地缓存失效通知发送失败, prefix: {}, identifier: {}", keyPrefix, localKey, e);
+        }
+    }
+
+    /**
+     本地缓存的值
+
+     @param value 值
+     @param ttl   本地缓存有效期
+     */
+    private record LocalEntry<V>(V value, Duration ttl) {
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.lang.NonNull;
 
 import java.io.Serializable;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  前缀固定的缓存存取器
@@ -20,6 +21,31 @@ public interface PrefixCacheAccessor<T> {
      */
     Optional<T> get(@NonNull Serializable identifier);
 
+    /**
+     获取缓存数据, 不存在时调用loader加载并写入缓存
+     <ul>
+     <li>默认实现为get + set, 不合并并发加载, 并发未命中时loader可能被调用多次</li>
+     <li>{@link RedisPrefixAccessor}重写为同一个标识的并发加载合并为一次</li>
+     <li>loader返回null时不写入缓存</li>
+     </ul>
+
+     @param identifier 标识
+     @param loader     数据加载器, 如查询数据库
+     @return 缓存数据
+     */
+    default Optional<T> getOrLoad(@NonNull Serializable identifier, @NonNull Supplier<T> loader) {
+        Optional<T> optional = this.get(identifier);
+        if (optional.isPresent()) {
+            return optional;
+        }
+
+        T value = loader.get();
+        if (value != null) {
+            this.set(identifier, value);
+        }
+        return Optional.ofNullable(value);
+    }
+
     /**
      设置缓存, 会覆盖就数据
 
@@ -0,0 +1,70 @@
+package top.cjf_rb.redis.context.type.accessor;
+
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+
+/**
+ 前缀固定的响应式缓存存取器, 与{@link PrefixCacheAccessor}语义一致, 不阻塞调用线程
+
+ @author cjf
+ @since 1.0 */
+public interface ReactivePrefixCacheAccessor<T> {
+
+    /**
+     获取缓存数据
+
+     @param identifier 标识
+     @return 缓存数据, 不存在时为空
+     */
+    Mono<T> get(@NonNull Serializable identifier);
+
+    /**
+     获取缓存数据, 不存在时订阅loader加载并写入缓存
+     <ul>
+     <li>当前节点内同一个标识的并发加载会合并为一次</li>
+     <li>loader为空时不写入缓存</li>
+     </ul>
+
+     @param identifier 标识
+     @param loader     数据加载器
+     @return 缓存数据
+     */
+    Mono<T> getOrLoad(@NonNull Serializable identifier, @NonNull Mono<T> loader);
+
+    /**
+     设置缓存, 会覆盖就数据
+
+     @param identifier 标识
+     @param content    缓存的内容
+     @return 是否设置成功
+     */
+    Mono<Boolean> set(@NonNull Serializable identifier, T content);
+
+    /**
+     数据不存在才设置缓存
+
+     @param identifier 标识
+     @param content    缓存的内容
+     @return 是否设置成功
+     */
+    Mono<Boolean> setIfAbsent(@NonNull Serializable identifier, T content);
+
+    /**
+     缓存是否存在
+
+     @param identifier 标识
+     @return 存在则true, 反之, false
+     */
+    Mono<Boolean> exists(@NonNull Serializable identifier);
+
+    /**
+     清除缓存
+
+     @param identifier 标识
+     @return 是否有缓存被清除
+     */
+    Mono<Boolean> clear(@NonNull Serializable identifier);
+
+}
@@ -0,0 +1,105 @@
+package top.cjf_rb.redis.context.type.accessor;
+
+import jakarta.annotation.Resource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+import top.cjf_rb.core.constant.SeparatorEnum;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ 基于ReactiveRedisTemplate实现的存取器
+ <ul>
+ <li>key前缀与有效期的处理与{@link RedisPrefixAccessor}一致, 两者可读写同一份数据</li>
+ <li>value与RedisTemplate共用序列化器, 见 AppRedisConfig#appReactiveRedisTemplate</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+public class ReactiveRedisPrefixAccessor<T> implements ReactivePrefixCacheAccessor<T> {
+
+    public final String keyPrefix;
+    public final Duration expired;
+    /**
+     当前节点进行中的加载, 同一个key的并发加载共享同一个结果
+     */
+    private final ConcurrentMap<String, Mono<T>> loading = new ConcurrentHashMap<>();
+    @Resource
+    private ReactiveRedisTemplate<String, T> appReactiveRedisTemplate;
+
+    /**
+     @param prefix  key前缀
+     @param expired 有效期
+     */
+    public ReactiveRedisPrefixAccessor(String prefix, Duration expired) {
+        this.expired = expired;
+        if (prefix.endsWith(SeparatorEnum.COLON.getSeparator())) {
+            this.keyPrefix = prefix;
+        } else {
+            this.keyPrefix = prefix + SeparatorEnum.COLON.getSeparator();
+        }
+    }
+
+    @Override
+    public Mono<T> get(@NonNull Serializable identifier) {
+        String key = keyPrefix + identifier;
+
+        return appReactiveRedisTemplate.opsForValue()
+                                       .get(key);
+    }
+
+    @Override
+    public Mono<T> getOrLoad(@NonNull Serializable identifier, @NonNull Mono<T> loader) {
+        String key = keyPrefix + identifier;
+
+        return this.get(identifier)
+                   .switchIfEmpty(Mono.defer(() -> loading.computeIfAbsent(key, k -> this.load(k, identifier,
+                                                                                                loader))));
+    }
+
+    /**
+     加载并写入缓存, 结束后从进行中的加载移除, 结果由cache()共享给所有等待者
+     */
+    private Mono<T> load(String key, Serializable identifier, Mono<T> loader) {
+        return loader.flatMap(value -> this.set(identifier, value)
+                                           .thenReturn(value))
+                     .doFinally(signal -> loading.remove(key))
+                     .cache();
+    }
+
+    @Override
+    public Mono<Boolean> set(@NonNull Serializable identifier, T content) {
+        String key = keyPrefix + identifier;
+
+        return appReactiveRedisTemplate.opsForValue()
+                                       .set(key, content, expired);
+    }
+
+    @Override
+    public Mono<Boolean> setIfAbsent(@NonNull Serializable identifier, T content) {
+        String key = keyPrefix + identifier;
+
+        return appReactiveRedisTemplate.opsForValue()
+                                       .setIfAbsent(key, content, expired);
+    }
+
+    @Override
+    public Mono<Boolean> exists(@NonNull Serializable identifier) {
+        String key = keyPrefix + identifier;
+
+        return appReactiveRedisTemplate.hasKey(key);
+    }
+
+    @Override
+    public Mono<Boolean> clear(@NonNull Serializable identifier) {
+        String key = keyPrefix + identifier;
+
+        return appReactiveRedisTemplate.delete(key)
+                                       .map(count -> count > 0);
+    }
+
+}
@@ -1,26 +1,80 @@
 package top.cjf_rb.redis.context.type.accessor;
 
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
 import top.cjf_rb.core.constant.SeparatorEnum;
+import top.cjf_rb.redis.hotkey.HotKeyDetector;
+import top.cjf_rb.redis.metrics.RedisMetrics;
 
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  基于Redis实现的存取器
+ <p>
+ 开启Redis指标时, 各操作按keyPrefix记录耗时及数据大小
+ </p>
 
  @author cjf
  @since 1.0 */
+@Slf4j
 public class RedisPrefixAccessor<T> implements PrefixCacheAccessor<T> {
 
+    /**
+     加载锁的key前缀, 不能以keyPrefix开头, 否则会被count/multiGet扫描到
+     */
+    private static final String LOAD_LOCK_PREFIX = "app:load-lock:";
+    /**
+     等待其他节点加载完成的最长时间, 超时后自行加载
+     */
+    private static final Duration LOAD_LOCK_WAIT = Duration.ofSeconds(3);
+    /**
+     加载锁的租期, 防止持有锁的节点宕机后锁无法释放
+     */
+    private static final Duration LOAD_LOCK_LEASE = Duration.ofSeconds(10);
+    /**
+     提前刷新的激进程度, 越大越早刷新
+     */
+    private static final double EARLY_REFRESH_BETA = 1.0;
+
     public final String keyPrefix;
     public final Duration expired;
+    /**
+     当前节点进行中的加载, 同一个key的并发加载共享同一个结果
+     */
+    private final ConcurrentMap<String, CompletableFuture<Optional<T>>> loading = new ConcurrentHashMap<>();
+    /**
+     当前节点进行中的提前刷新, 与{@link #loading}分开, 刷新放弃时的空结果不会被未命中的请求拿到
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    /**
+     加载耗时的平滑值(纳秒), 用于计算提前刷新的概率
+     */
+    private final AtomicLong loadNanos = new AtomicLong();
     @Resource
-    private RedisTemplate<Serializable, T> redisTemplate;
+    protected RedisTemplate<Serializable, T> redisTemplate;
+    @Resource
+    private RedissonClient redissonClient;
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+    @Resource
+    protected RedisMetrics redisMetrics;
 
     /**
      @param prefix  key前缀
@@ -38,25 +92,90 @@ public class RedisPrefixAccessor<T> implements PrefixCacheAccessor<T> {
     @Override
     public void set(@NonNull Serializable identifier, T content) {
         String key = keyPrefix + identifier;
-
-        ValueOperations<Serializable, T> forValue = redisTemplate.opsForValue();
-        forValue.set(key, content, expired);
+        try {
+            this.write("set", key, content, RedisStringCommands.SetOption.UPSERT);
+        } finally {
+            this.invalidateHotKey(key);
+        }
     }
 
     @Override
     public void setIfAbsent(@NonNull Serializable identifier, T content) {
         String key = keyPrefix + identifier;
-
-        ValueOperations<Serializable, T> forValue = redisTemplate.opsForValue();
-        forValue.setIfAbsent(key, content, expired);
+        try {
+            this.write("setIfAbsent", key, content, RedisStringCommands.SetOption.SET_IF_ABSENT);
+        } finally {
+            this.invalidateHotKey(key);
+        }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Optional<T> get(@NonNull Serializable identifier) {
         String key = keyPrefix + identifier;
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+
+        // 热点key优先使用本地副本
+        byte[] value = hotKeyDetector.get(key, () -> {
+            byte[] rawValue = redisMetrics.time("get", keyPrefix, () -> redisTemplate.execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands()
+                                                                    .get(rawKey)));
+            if (rawValue != null) {
+                redisMetrics.payload("get", keyPrefix, rawValue.length);
+            }
+            return rawValue;
+        });
+        if (value == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((T) redisTemplate.getValueSerializer()
+                                                    .deserialize(value));
+    }
 
-        ValueOperations<Serializable, T> forValue = redisTemplate.opsForValue();
-        return Optional.ofNullable(forValue.get(key));
+    /**
+     获取缓存数据, 不存在时加载
+     <ul>
+     <li>节点内: 同一个key的并发加载合并为一次</li>
+     <li>节点间: 通过Redisson锁保证同一时间只有一个节点加载, 其他节点等待后直接读取缓存</li>
+     <li>提前刷新: 剩余有效期越接近加载耗时, 越可能在后台提前刷新(XFetch), 避免集中过期</li>
+     </ul>
+     */
+    @Override
+    public Optional<T> getOrLoad(@NonNull Serializable identifier, @NonNull Supplier<T> loader) {
+        return Optional.ofNullable(this.getOrLoadWithTtl(identifier, loader)
+                                       .value());
+    }
+
+    /**
+     同{@link #getOrLoad}, 同时返回剩余有效期, 供按剩余有效期缓存的子类使用;
+     加载得到的值刚写入Redis, 剩余有效期按{@link #expired}计
+
+     @param identifier 标识
+     @param loader     加载方法
+     @return 值及剩余有效期, 值不存在时为null
+     */
+    protected CachedValue<T> getOrLoadWithTtl(@NonNull Serializable identifier, @NonNull Supplier<T> loader) {
+        String key = keyPrefix + identifier;
+
+        CachedValue<T> cached = this.getWithTtl(key);
+        T value = cached.value();
+        if (value == null) {
+            return new CachedValue<>(this.load(key, identifier, loader, false)
+                                         .orElse(null), expired.toMillis());
+        }
+
+        if (this.shouldRefreshEarly(cached.ttl())) {
+            Thread.ofVirtual()
+                  .name("redis-refresh-" + key)
+                  .start(() -> {
+                      try {
+                          this.load(key, identifier, loader, true);
+                      } catch (Exception e) {
+                          log.warn("缓存提前刷新失败, key: {}", key, e);
+                      }
+                  });
+        }
+        return cached;
     }
 
     /**
@@ -106,39 +225,266 @@ public class RedisPrefixAccessor<T> implements PrefixCacheAccessor<T> {
     /**
      获取多个值, 默认扫描的keys为: {@link RedisPrefixAccessor#keyPrefix} + identifier + '*'
 
+     结果集合本身与prefix下的key数量成正比, 因此按key去重, 每个key只返回一次
+
      @param identifier 标识
-     @param scanCount  每次扫描Redis key的数量, 并非返回集合的总数
+     @param scanCount  每次扫描Redis key的数量, 并非返回集合的总数, 同时作为每批MGET的key数量
      */
     public List<T> multiGet(Serializable identifier, int scanCount) {
-        String key = keyPrefix + identifier;
+        try (Stream<T> stream = this.stream(identifier, scanCount, scanCount, 1, true)) {
+            return stream.toList();
+        }
+    }
 
-        Set<Serializable> keys = new HashSet<>(scanCount * 4);
-        try (Cursor<byte[]> cursor = this.getCursor(key, scanCount)) {
-            if (Objects.isNull(cursor)) {
-                return Collections.emptyList();
-            }
+    /**
+     流式获取多个值, 扫描的keys为: {@link RedisPrefixAccessor#keyPrefix} + identifier + '*'
+     <ul>
+     <li>按页扫描key, 每凑满batchSize个key执行一次MGET, 同一时间只持有parallelism个批次的值</li>
+     <li>SCAN在rehash期间可能重复返回同一个key, 只在同一批次内去重, 不同批次间可能返回重复的值,
+     内存只与批次大小有关, 与prefix下的key数量无关</li>
+     <li>流是惰性的, limit/findFirst等短路操作会提前结束扫描</li>
+     <li>parallelism大于1时, 最多同时执行parallelism个MGET, 结果仍按批次顺序返回</li>
+     <li>使用完毕必须关闭流(try-with-resources), 以释放游标</li>
+     </ul>
+
+     @param identifier  标识
+     @param scanCount   每次扫描Redis key的数量
+     @param batchSize   每批MGET的key数量
+     @param parallelism 同时执行的MGET数量上限
+     @return 值的流, 已过期的key不包含在内
+     */
+    public Stream<T> stream(Serializable identifier, int scanCount, int batchSize, int parallelism) {
+        return this.stream(identifier, scanCount, batchSize, parallelism, false);
+    }
 
-            while (cursor.hasNext()) {
-                keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
-            }
-        }
+    /**
+     流式获取多个值, 同{@link #stream(Serializable, int, int, int)}
 
-        ValueOperations<Serializable, T> forValue = redisTemplate.opsForValue();
-        return forValue.multiGet(keys);
+     @param distinct 是否保证每个key只返回一次, 为true时保存整个流已扫描到的key,
+     内存与prefix下的key数量成正比, 只应用于key数量有限的prefix
+     */
+    public Stream<T> stream(Serializable identifier, int scanCount, int batchSize, int parallelism,
+                            boolean distinct) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than 0");
+
+        String key = keyPrefix + identifier;
+        BatchSpliterator spliterator = new BatchSpliterator(key, scanCount, batchSize, parallelism, distinct);
+        return StreamSupport.stream(spliterator, false)
+                            .onClose(spliterator::close);
+    }
+
+    /**
+     异步获取当前prefix key的总数量, 不占用调用线程
+
+     @param identifier 标识
+     @param scanCount  每次扫描Redis key的数量
+     @return prefix key的总数量
+     */
+    public CompletableFuture<Integer> countAsync(Serializable identifier, int scanCount) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread.ofVirtual()
+              .name("redis-count-" + keyPrefix)
+              .start(() -> {
+                  try {
+                      future.complete(this.count(identifier, scanCount));
+                  } catch (Throwable e) {
+                      future.completeExceptionally(e);
+                  }
+              });
+        return future;
     }
 
     @Override
     public boolean exists(@NonNull Serializable identifier) {
         String key = keyPrefix + identifier;
 
-        return redisTemplate.hasKey(key);
+        return redisMetrics.time("exists", keyPrefix, () -> redisTemplate.hasKey(key));
     }
 
     @Override
     public void clear(@NonNull Serializable identifier) {
         String key = keyPrefix + identifier;
+        try {
+            redisMetrics.time("clear", keyPrefix, () -> redisTemplate.delete(key));
+        } finally {
+            this.invalidateHotKey(key);
+        }
+    }
 
-        redisTemplate.delete(key);
+    /**
+     清除热点key的本地副本, 子类自行写入Redis后, 在写入完成后调用
+
+     @param key 完整的key
+     */
+    protected void invalidateHotKey(String key) {
+        hotKeyDetector.invalidate(key);
+    }
+
+    /**
+     一次往返同时获取值和剩余有效期, 供getOrLoad使用, 存储结构不是字符串的子类需要重写
+
+     @param key 完整的key
+     @return 值及剩余有效期
+     */
+    @SuppressWarnings("unchecked")
+    protected CachedValue<T> getWithTtl(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        List<Object> results = redisMetrics.time("getWithTtl", keyPrefix, () -> redisTemplate.executePipelined(
+                (RedisCallback<Object>) connection -> {
+                    connection.stringCommands()
+                              .get(rawKey);
+                    connection.keyCommands()
+                              .pTtl(rawKey);
+                    return null;
+                }));
+
+        Long ttl = (Long) results.get(1);
+        return new CachedValue<>((T) results.get(0), ttl == null ? -2 : ttl);
+    }
+
+    /**
+     批量获取一批key的值, 去掉已过期的值, 供multiGet/stream使用, 存储结构不是字符串的子类需要重写
+
+     @param keys 完整的key
+     @return 值
+     */
+    protected List<T> multiGetValues(List<Serializable> keys) {
+        List<T> values = redisMetrics.time("multiGet", keyPrefix, () -> redisTemplate.opsForValue()
+                                                                                     .multiGet(keys));
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+                     .filter(Objects::nonNull)
+                     .toList();
+    }
+
+    /**
+     序列化后直接写入, 以便记录写入的数据大小
+
+     @param command 命令名称, 用作指标标签
+     @param key     完整的key
+     @param content 值
+     @param option  写入条件
+     */
+    @SuppressWarnings("unchecked")
+    private void write(String command, String key, T content, RedisStringCommands.SetOption option) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        byte[] rawValue = ((RedisSerializer<T>) redisTemplate.getValueSerializer()).serialize(content);
+        redisMetrics.payload(command, keyPrefix, rawValue == null ? 0 : rawValue.length);
+
+        redisMetrics.time(command, keyPrefix, () -> redisTemplate.execute(
+                (RedisCallback<Boolean>) connection -> connection.stringCommands()
+                                                                 .set(rawKey, rawValue, Expiration.from(expired),
+                                                                      option)));
+    }
+
+    /**
+     节点内合并同一个key的并发加载
+
+     @param refresh 是否为提前刷新, 提前刷新时已有加载或刷新在进行则直接放弃
+     */
+    private Optional<T> load(String key, Serializable identifier, Supplier<T> loader, boolean refresh) {
+        if (refresh) {
+            if (loading.containsKey(key) || !refreshing.add(key)) {
+                return Optional.empty();
+            }
+            try {
+                return this.loadWithLock(key, identifier, loader, true);
+            } finally {
+                refreshing.remove(key);
+            }
+        }
+
+        CompletableFuture<Optional<T>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return this.await(existing);
+        }
+
+        try {
+            Optional<T> result = this.loadWithLock(key, identifier, loader, false);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     节点间通过锁合并加载, 等待锁超时后仍自行加载, 避免请求失败
+     */
+    private Optional<T> loadWithLock(String key, Serializable identifier, Supplier<T> loader, boolean refresh) {
+        RLock lock = redissonClient.getLock(LOAD_LOCK_PREFIX + key);
+        boolean locked;
+        try {
+            long waitTime = refresh ? 0 : LOAD_LOCK_WAIT.toMillis();
+            locked = lock.tryLock(waitTime, LOAD_LOCK_LEASE.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            locked = false;
+        }
+
+        // 其他节点正在刷新
+        if (!locked && refresh) {
+            return Optional.empty();
+        }
+
+        try {
+            if (!refresh) {
+                // 等待期间其他节点可能已加载完成
+                Optional<T> cached = this.get(identifier);
+                if (cached.isPresent()) {
+                    return cached;
+                }
+            }
+
+            long start = System.nanoTime();
+            T value = loader.get();
+            long elapsed = System.nanoTime() - start;
+            loadNanos.updateAndGet(previous -> previous == 0 ? elapsed : (previous * 7 + elapsed) / 8);
+
+            if (value != null) {
+                this.set(identifier, value);
+            }
+            return Optional.ofNullable(value);
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Optional<T> await(CompletableFuture<Optional<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     XFetch: 剩余有效期 <= -加载耗时 * beta * ln(random) 时提前刷新
+
+     @param ttl 剩余有效期(毫秒), 负数表示key不存在或未设置有效期
+     */
+    private boolean shouldRefreshEarly(long ttl) {
+        long delta = TimeUnit.NANOSECONDS.toMillis(loadNanos.get());
+        if (ttl < 0 || delta <= 0) {
+            return false;
+        }
+
+        double random = 1.0 - ThreadLocalRandom.current()
+                                               .nextDouble();
+        return -delta * EARLY_REFRESH_BETA * Math.log(random) >= ttl;
     }
 
     /**
@@ -156,4 +502,115 @@ public class RedisPrefixAccessor<T> implements PrefixCacheAccessor<T> {
         return redisTemplate.execute((RedisCallback<Cursor<byte[]>>) connection -> connection.keyCommands()
                                                                                              .scan(scanOptions));
     }
+
+    /**
+     值及剩余有效期
+
+     @param value 值, 不存在时为null
+     @param ttl   剩余有效期(毫秒), 负数表示key不存在或未设置有效期
+     */
+    protected record CachedValue<V>(V value, long ttl) {
+    }
+
+    /**
+     按批次扫描并MGET的迭代器, 同一时间最多持有parallelism个批次的数据
+     */
+    private class BatchSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final String scanKey;
+        private final int scanCount;
+        private final int batchSize;
+        private final int parallelism;
+        private final Deque<CompletableFuture<List<T>>> inFlight = new ArrayDeque<>();
+        /**
+         整个流已扫描到的key, 只在要求去重时保存, SCAN只保证至少返回一次, 不保证只返回一次
+         */
+        private final Set<String> seen;
+        private Cursor<byte[]> cursor;
+        private ExecutorService executor;
+        private Iterator<T> current = Collections.emptyIterator();
+        private boolean exhausted;
+
+        BatchSpliterator(String scanKey, int scanCount, int batchSize, int parallelism, boolean distinct) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.scanKey = scanKey;
+            this.scanCount = scanCount;
+            this.batchSize = batchSize;
+            this.parallelism = parallelism;
+            this.seen = distinct ? new HashSet<>() : null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (!current.hasNext()) {
+                this.fill();
+                CompletableFuture<List<T>> next = inFlight.poll();
+                if (next == null) {
+                    return false;
+                }
+                current = next.join()
+                              .iterator();
+            }
+
+            action.accept(current.next());
+            return true;
+        }
+
+        /**
+         补齐进行中的批次
+         */
+        private void fill() {
+            while (!exhausted && inFlight.size() < parallelism) {
+                List<Serializable> keys = this.nextKeys();
+                if (keys.isEmpty()) {
+                    return;
+                }
+
+                if (parallelism == 1) {
+                    inFlight.add(CompletableFuture.completedFuture(multiGetValues(keys)));
+                } else {
+                    if (executor == null) {
+                        executor = Executors.newVirtualThreadPerTaskExecutor();
+                    }
+                    inFlight.add(CompletableFuture.supplyAsync(() -> multiGetValues(keys), executor));
+                }
+            }
+        }
+
+        /**
+         从游标读取下一批key, 批次内去重
+         */
+        private List<Serializable> nextKeys() {
+            if (cursor == null) {
+                cursor = getCursor(scanKey, scanCount);
+                if (Objects.isNull(cursor)) {
+                    exhausted = true;
+                    return Collections.emptyList();
+                }
+            }
+
+            Set<Serializable> keys = new LinkedHashSet<>();
+            while (keys.size() < batchSize && cursor.hasNext()) {
+                String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                if (seen == null || seen.add(key)) {
+                    keys.add(key);
+                }
+            }
+            if (!cursor.hasNext()) {
+                exhausted = true;
+            }
+            return new ArrayList<>(keys);
+        }
+
+        void close() {
+            inFlight.forEach(future -> future.cancel(true));
+            inFlight.clear();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package top.cjf_rb.redis.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ 线程安全的Count-Min Sketch, 用固定内存估算key的访问次数, 估算值只会偏大不会偏小
+
+ @author cjf
+ @since 1.0 */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray table;
+
+    /**
+     @param depth 哈希函数个数
+     @param width 每行的计数器个数, 向上取整为2的幂
+     */
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = this.width - 1;
+        this.table = new AtomicLongArray(depth * this.width);
+    }
+
+    /**
+     累加计数
+
+     @return 累加后的估算值
+     */
+    long add(String key, long count) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + ((h1 + i * h2) & mask);
+            min = Math.min(min, table.addAndGet(index, count));
+        }
+        return min;
+    }
+
+    /**
+     估算访问次数
+     */
+    long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + ((h1 + i * h2) & mask);
+            min = Math.min(min, table.get(index));
+        }
+        return min;
+    }
+
+    /**
+     所有计数减半, 使统计结果偏向近期的访问
+     */
+    void halve() {
+        for (int i = 0; i < table.length(); i++) {
+            table.updateAndGet(i, value -> value >>> 1);
+        }
+    }
+
+    /**
+     由String.hashCode扩散为64位, 高低32位作为两个独立的哈希值
+     */
+    private static long hash(String key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,11 @@
+package top.cjf_rb.redis.hotkey;
+
+/**
+ 热点key
+
+ @param key      key, 非默认数据库的key以 "数据库索引/" 开头
+ @param estimate 估算的访问次数
+ @author cjf
+ @since 1.0 */
+public record HotKey(String key, long estimate) {
+}
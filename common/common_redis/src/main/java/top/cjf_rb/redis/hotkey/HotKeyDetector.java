@@ -0,0 +1,183 @@
+package top.cjf_rb.redis.hotkey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ 热点key探测及本地副本
+ <ul>
+ <li>使用Count-Min Sketch统计key的访问次数, 每个统计窗口计数减半, 内存占用固定</li>
+ <li>估算值达到阈值的key成为热点, 读取时优先使用短有效期的本地副本, 减轻单个分片的压力</li>
+ <li>本节点写入完成后清除本地副本, 其他节点写入后最多在本地副本有效期内读到旧值</li>
+ <li>从Redis读取期间发生过清除时, 读到的值不放入本地副本, 避免把写入前读到的旧值放回</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotKeyDetector {
+
+    private static final int SKETCH_DEPTH = 4;
+    /**
+     每行计数器个数与热点数量上限的倍数, 越大误判越少
+     */
+    private static final int SKETCH_WIDTH_FACTOR = 16;
+
+    private final AppRedisProperties appRedisProperties;
+
+    /**
+     热点key -> 成为热点时的估算值
+     */
+    private final ConcurrentMap<String, Long> hotKeys = new ConcurrentHashMap<>();
+    /**
+     清除次数, 读取前后不一致说明读取期间有写入, 读到的值可能已过时
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    private boolean enabled;
+    private long threshold;
+    private int sampleRate;
+    private long maximumSize;
+    private CountMinSketch sketch;
+    private Cache<String, byte[]> replica;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        AppRedisProperties.HotKey properties = appRedisProperties.getHotKey();
+        enabled = properties.isEnabled();
+        if (!enabled) {
+            return;
+        }
+
+        threshold = properties.getThreshold();
+        sampleRate = Math.max(properties.getSampleRate(), 1);
+        maximumSize = properties.getLocalMaximumSize();
+        sketch = new CountMinSketch(SKETCH_DEPTH, (int) Math.min(maximumSize * SKETCH_WIDTH_FACTOR, 1 << 24));
+        replica = Caffeine.newBuilder()
+                          .maximumSize(maximumSize)
+                          .expireAfterWrite(properties.getLocalTtl())
+                          .build();
+
+        long window = properties.getWindow()
+                                .toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                     .name("redis-hot-key-decay")
+                                                                     .daemon()
+                                                                     .factory());
+        scheduler.scheduleAtFixedRate(this::decay, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     读取value, 热点key优先使用本地副本
+
+     @param key    key
+     @param loader 从Redis读取原始数据
+     @return 原始数据, 不存在时为null
+     */
+    @Nullable
+    public byte[] get(String key, Supplier<byte[]> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        this.record(key);
+        if (!hotKeys.containsKey(key)) {
+            return loader.get();
+        }
+
+        byte[] cached = replica.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long snapshot = invalidations.get();
+        byte[] value = loader.get();
+        if (value != null) {
+            replica.asMap()
+                   .compute(key, (k, existing) -> invalidations.get() == snapshot ? value : existing);
+        }
+        return value;
+    }
+
+    /**
+     清除本地副本, 本节点写入或删除key完成后调用
+
+     @param key key
+     */
+    public void invalidate(String key) {
+        if (enabled) {
+            invalidations.incrementAndGet();
+            replica.invalidate(key);
+        }
+    }
+
+    /**
+     当前的热点key, 按估算值从高到低排序
+
+     @return 热点key
+     */
+    public List<HotKey> hotKeys() {
+        return hotKeys.entrySet()
+                      .stream()
+                      .map(entry -> new HotKey(entry.getKey(), Math.max(sketch.estimate(entry.getKey()),
+                                                                        entry.getValue())))
+                      .sorted(Comparator.comparingLong(HotKey::estimate)
+                                        .reversed())
+                      .toList();
+    }
+
+    private void record(String key) {
+        if (sampleRate > 1 && ThreadLocalRandom.current()
+                                               .nextInt(sampleRate) != 0) {
+            return;
+        }
+
+        long estimate = sketch.add(key, sampleRate);
+        if (estimate >= threshold && !hotKeys.containsKey(key) && hotKeys.size() < maximumSize) {
+            hotKeys.put(key, estimate);
+            log.info("发现热点key: {}, 估算访问次数: {}", key, estimate);
+        }
+    }
+
+    /**
+     每个统计窗口: 移除不再达到阈值的热点, 然后计数减半
+     */
+    private void decay() {
+        try {
+            for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+                String key = entry.getKey();
+                if (sketch.estimate(key) < threshold) {
+                    hotKeys.remove(key);
+                    replica.invalidate(key);
+                }
+            }
+            sketch.halve();
+        } catch (Exception e) {
+            log.warn("热点key统计衰减失败", e);
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package top.cjf_rb.redis.hotkey;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ 热点key端点: /actuator/hotkeys, 需要在 management.endpoints.web.exposure.include 中开放
+
+ @author cjf
+ @since 1.0 */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "hotkeys")
+public class HotKeyEndpoint {
+
+    private final HotKeyDetector hotKeyDetector;
+
+    @ReadOperation
+    public List<HotKey> hotKeys() {
+        return hotKeyDetector.hotKeys();
+    }
+
+}
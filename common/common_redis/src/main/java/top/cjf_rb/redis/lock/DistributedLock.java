@@ -0,0 +1,50 @@
+package top.cjf_rb.redis.lock;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ 方法执行期间持有分布式锁, 适用于Spring Bean的public方法
+ <p>
+ 等待超时时抛出 {@link top.cjf_rb.core.exception.AppException}
+ ({@link top.cjf_rb.core.constant.ErrorCodeEnum#WAIT_TIMED_OUT})
+
+ @author cjf
+ @see DistributedLocks
+ @since 1.0 */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface DistributedLock {
+
+    /**
+     锁名称, 用于区分业务及指标标签, 默认为 类名.方法名
+     */
+    String name() default "";
+
+    /**
+     锁的key, SpEL表达式, 可引用方法参数, 如 "#orderId"、"#user.id", 为空时锁住整个方法
+     */
+    String key() default "";
+
+    /**
+     等待锁的最长时间
+     */
+    long waitTime() default 3;
+
+    /**
+     锁的租期, 小于等于0时由看门狗自动续期, 直到方法结束
+     */
+    long leaseTime() default -1;
+
+    /**
+     waitTime/leaseTime的单位
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+}
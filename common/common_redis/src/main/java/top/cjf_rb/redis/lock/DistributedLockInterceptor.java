@@ -0,0 +1,81 @@
+package top.cjf_rb.redis.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StringUtils;
+import top.cjf_rb.core.constant.ErrorCodeEnum;
+import top.cjf_rb.core.exception.AppException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ 处理{@link DistributedLock}注解的方法拦截器
+
+ @author cjf
+ @since 1.0 */
+@RequiredArgsConstructor
+public class DistributedLockInterceptor implements MethodInterceptor {
+
+    private static final String GLOBAL_KEY = "global";
+
+    private final ObjectProvider<DistributedLocks> distributedLocks;
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    /**
+     key表达式 -> 解析结果, 避免每次调用都解析
+     */
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : invocation.getMethod()
+                                                                                            .getDeclaringClass();
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        DistributedLock annotation = AnnotatedElementUtils.findMergedAnnotation(method, DistributedLock.class);
+        if (annotation == null) {
+            return invocation.proceed();
+        }
+
+        String name = StringUtils.hasText(annotation.name()) ? annotation.name() :
+                targetClass.getSimpleName() + "." + method.getName();
+        String key = StringUtils.hasText(annotation.key()) ? this.evaluateKey(annotation.key(), method,
+                                                                               invocation.getArguments(), target) :
+                GLOBAL_KEY;
+        Duration waitTime = Duration.of(annotation.waitTime(), annotation.unit()
+                                                                         .toChronoUnit());
+        Duration leaseTime = Duration.of(annotation.leaseTime(), annotation.unit()
+                                                                           .toChronoUnit());
+
+        LockHandle handle = distributedLocks.getObject()
+                                            .tryLock(name, key, waitTime, leaseTime)
+                                            .orElseThrow(() -> new AppException(ErrorCodeEnum.WAIT_TIMED_OUT));
+        try (handle) {
+            return invocation.proceed();
+        }
+    }
+
+    private String evaluateKey(String expression, Method method, Object[] arguments, Object target) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(target, method, arguments,
+                                                                                parameterNameDiscoverer);
+        Object value = expressions.computeIfAbsent(expression, parser::parseExpression)
+                                  .getValue(context);
+        return String.valueOf(value);
+    }
+
+}
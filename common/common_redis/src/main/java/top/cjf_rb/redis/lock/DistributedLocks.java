@@ -0,0 +1,223 @@
+package top.cjf_rb.redis.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RFencedLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.core.constant.ErrorCodeEnum;
+import top.cjf_rb.core.exception.AppException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ 基于Redisson的分布式锁
+ <ul>
+ <li>本地预占: 先获取该key的本地锁再请求Redis, 同一节点对同一个key的竞争在本地排队, 避免大量线程同时轮询Redis,
+ 不同key的本地锁互不影响, 没有线程持有或等待时即移除</li>
+ <li>看门狗: 租期小于等于0时由Redisson自动续期, 直到释放</li>
+ <li>防护令牌: 每次加锁返回递增的令牌, 见{@link LockHandle#fencingToken()}</li>
+ <li>指标: distributed.lock.wait(标签 name/result), distributed.lock.hold(标签 name),
+ distributed.lock.contention(标签 name, 本地排队或获取失败的次数)</li>
+ </ul>
+
+ @author cjf
+ @see DistributedLock
+ @since 1.0 */
+@Component
+@RequiredArgsConstructor
+public class DistributedLocks {
+
+    private static final String KEY_PREFIX = "app:lock:";
+
+    private final RedissonClient redissonClient;
+    /**
+     本地锁, 锁的key -> 本地锁, 引用计数归零时移除
+     */
+    private final ConcurrentMap<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     尝试加锁, 由看门狗自动续期
+
+     @param name     锁名称
+     @param key      锁的key
+     @param waitTime 等待锁的最长时间
+     @return 已获取的锁, 等待超时时为空
+     */
+    public Optional<LockHandle> tryLock(String name, String key, Duration waitTime) {
+        return this.tryLock(name, key, waitTime, null);
+    }
+
+    /**
+     尝试加锁
+
+     @param name      锁名称
+     @param key       锁的key
+     @param waitTime  等待锁的最长时间
+     @param leaseTime 锁的租期, 为null或小于等于0时由看门狗自动续期
+     @return 已获取的锁, 等待超时或线程被中断时为空
+     */
+    public Optional<LockHandle> tryLock(String name, String key, Duration waitTime, @Nullable Duration leaseTime) {
+        String lockKey = KEY_PREFIX + name + ":" + key;
+        long start = System.nanoTime();
+        long waitNanos = Math.max(waitTime.toNanos(), 0);
+        long leaseMillis = leaseTime == null || leaseTime.isNegative() || leaseTime.isZero() ? -1 :
+                leaseTime.toMillis();
+
+        LocalLock localLock = this.retainLocal(lockKey);
+        try {
+            if (!localLock.tryLock()) {
+                this.countContention(name);
+                if (!localLock.tryLock(waitNanos, TimeUnit.NANOSECONDS)) {
+                    this.releaseLocal(localLock);
+                    this.recordWait(name, false, System.nanoTime() - start);
+                    return Optional.empty();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            this.releaseLocal(localLock);
+            this.recordWait(name, false, System.nanoTime() - start);
+            return Optional.empty();
+        }
+
+        Long token;
+        RFencedLock lock = redissonClient.getFencedLock(lockKey);
+        try {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(waitNanos - (System.nanoTime() - start),
+                                                                          0));
+            token = lock.tryLockAndGetToken(remainingMillis, leaseMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            localLock.unlock();
+            this.releaseLocal(localLock);
+            throw e;
+        }
+
+        if (token == null) {
+            localLock.unlock();
+            this.releaseLocal(localLock);
+            this.countContention(name);
+            this.recordWait(name, false, System.nanoTime() - start);
+            return Optional.empty();
+        }
+
+        this.recordWait(name, true, System.nanoTime() - start);
+        return Optional.of(new LockHandle(this, name, key, token, lock, localLock));
+    }
+
+    /**
+     加锁后执行, 由看门狗自动续期
+
+     @param name     锁名称
+     @param key      锁的key
+     @param waitTime 等待锁的最长时间
+     @param action   持有锁时执行的操作
+     @return 操作的结果
+     @throws AppException 等待超时, {@link ErrorCodeEnum#WAIT_TIMED_OUT}
+     */
+    public <T> T executeWithLock(String name, String key, Duration waitTime, Supplier<T> action) {
+        LockHandle handle = this.tryLock(name, key, waitTime)
+                                .orElseThrow(() -> new AppException(ErrorCodeEnum.WAIT_TIMED_OUT));
+        try (handle) {
+            return action.get();
+        }
+    }
+
+    /**
+     加锁后执行, 由看门狗自动续期
+
+     @param name     锁名称
+     @param key      锁的key
+     @param waitTime 等待锁的最长时间
+     @param action   持有锁时执行的操作
+     @throws AppException 等待超时, {@link ErrorCodeEnum#WAIT_TIMED_OUT}
+     */
+    public void executeWithLock(String name, String key, Duration waitTime, Runnable action) {
+        this.executeWithLock(name, key, waitTime, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     获取key的本地锁并增加引用计数, 计数在compute内修改, 与移除互斥
+     */
+    private LocalLock retainLocal(String lockKey) {
+        return localLocks.compute(lockKey, (k, existing) -> {
+            LocalLock localLock = existing != null ? existing : new LocalLock(k);
+            localLock.refs++;
+            return localLock;
+        });
+    }
+
+    /**
+     减少本地锁的引用计数, 归零时移除, 释放本地锁之后调用
+     */
+    void releaseLocal(LocalLock localLock) {
+        localLocks.computeIfPresent(localLock.key, (k, existing) -> --existing.refs == 0 ? null : existing);
+    }
+
+    void recordHold(String name, long nanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Timer.builder("distributed.lock.hold")
+             .description("分布式锁持有时长")
+             .tag("name", name)
+             .register(meterRegistry)
+             .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordWait(String name, boolean acquired, long nanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Timer.builder("distributed.lock.wait")
+             .description("分布式锁等待时长")
+             .tag("name", name)
+             .tag("result", acquired ? "acquired" : "timeout")
+             .register(meterRegistry)
+             .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void countContention(String name) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Counter.builder("distributed.lock.contention")
+               .description("分布式锁竞争次数")
+               .tag("name", name)
+               .register(meterRegistry)
+               .increment();
+    }
+
+    /**
+     单个key的本地锁, refs为持有或等待该锁的次数, 只在{@link #localLocks}的compute内读写
+     */
+    static final class LocalLock extends ReentrantLock {
+
+        private final String key;
+        private int refs;
+
+        private LocalLock(String key) {
+            this.key = key;
+        }
+    }
+
+}
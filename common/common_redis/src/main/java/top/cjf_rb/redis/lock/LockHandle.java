@@ -0,0 +1,76 @@
+package top.cjf_rb.redis.lock;
+
+import org.redisson.api.RLock;
+
+/**
+ 已获取的分布式锁, 使用try-with-resources释放
+
+ @author cjf
+ @since 1.0 */
+public final class LockHandle implements AutoCloseable {
+
+    private final DistributedLocks owner;
+    private final String name;
+    private final String key;
+    private final long fencingToken;
+    private final RLock lock;
+    private final DistributedLocks.LocalLock localLock;
+    private final long acquiredNanos;
+    private boolean released;
+
+    LockHandle(DistributedLocks owner, String name, String key, long fencingToken, RLock lock,
+               DistributedLocks.LocalLock localLock) {
+        this.owner = owner;
+        this.name = name;
+        this.key = key;
+        this.fencingToken = fencingToken;
+        this.lock = lock;
+        this.localLock = localLock;
+        this.acquiredNanos = System.nanoTime();
+    }
+
+    /**
+     锁名称
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     锁的key
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     防护令牌, 同一个key每次加锁严格递增
+     <p>
+     持有者因GC停顿等原因导致锁过期后, 写入下游时携带令牌, 下游拒绝比已见过的令牌小的写入, 避免两个持有者同时写入
+     */
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     释放锁, 必须在加锁的线程中调用, 重复调用无效
+     */
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        released = true;
+
+        try {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        } finally {
+            localLock.unlock();
+            owner.releaseLocal(localLock);
+            owner.recordHold(name, System.nanoTime() - acquiredNanos);
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package top.cjf_rb.redis.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.core.constant.SeparatorEnum;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ Redis命令耗时及数据大小指标
+ <ul>
+ <li>redis.command: 耗时, 标签 command(方法名)/prefix(key前缀)</li>
+ <li>redis.payload.size: 序列化后的数据大小, 标签同上</li>
+ <li>prefix只取key的前缀而不是完整的key, 避免标签基数过高</li>
+ <li>未开启或没有MeterRegistry时, 所有方法直接返回, 调用方可用{@link #isEnabled()}跳过准备工作</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Component
+@RequiredArgsConstructor
+public class RedisMetrics {
+
+    private static final String COMMAND_METRIC = "redis.command";
+    private static final String PAYLOAD_METRIC = "redis.payload.size";
+    /**
+     没有分隔符的key使用的前缀标签
+     */
+    private static final String NO_PREFIX = "-";
+
+    private final AppRedisProperties appRedisProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        enabled = meterRegistry != null && appRedisProperties.getMetrics()
+                                                             .isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     记录操作耗时
+
+     @param command 命令或方法名
+     @param prefix  key前缀
+     @param action  操作
+     @return 操作的结果
+     */
+    public <T> T time(String command, String prefix, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        Timer timer = timers.computeIfAbsent(command + SeparatorEnum.COLON.getSeparator() + prefix,
+                                             name -> Timer.builder(COMMAND_METRIC)
+                                                          .description("Redis命令耗时")
+                                                          .tag("command", command)
+                                                          .tag("prefix", prefix)
+                                                          .register(meterRegistry));
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     记录序列化后的数据大小
+
+     @param command 命令或方法名
+     @param prefix  key前缀
+     @param bytes   数据大小(字节)
+     */
+    public void payload(String command, String prefix, long bytes) {
+        if (!enabled) {
+            return;
+        }
+
+        summaries.computeIfAbsent(command + SeparatorEnum.COLON.getSeparator() + prefix,
+                                  name -> DistributionSummary.builder(PAYLOAD_METRIC)
+                                                             .description("Redis数据大小")
+                                                             .baseUnit("bytes")
+                                                             .tag("command", command)
+                                                             .tag("prefix", prefix)
+                                                             .publishPercentileHistogram()
+                                                             .register(meterRegistry))
+                 .record(bytes);
+    }
+
+    /**
+     key的前缀: 第一个冒号之前的部分, 没有冒号时为"-"
+
+     @param key 完整的key, 可为null
+     @return 前缀
+     */
+    public static String prefixOf(String key) {
+        if (key == null) {
+            return NO_PREFIX;
+        }
+
+        int index = key.indexOf(SeparatorEnum.COLON.getSeparator());
+        return index > 0 ? key.substring(0, index) : NO_PREFIX;
+    }
+
+}
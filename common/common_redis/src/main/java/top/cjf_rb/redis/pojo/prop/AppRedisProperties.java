@@ -0,0 +1,155 @@
+package top.cjf_rb.redis.pojo.prop;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ Redis扩展配置
+
+ @author cjf
+ @since 1.0 */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.redis")
+public class AppRedisProperties {
+
+    /**
+     value序列化配置
+     */
+    private Serializer serializer = new Serializer();
+    /**
+     value压缩配置
+     */
+    private Compression compression = new Compression();
+    /**
+     限流配置
+     */
+    private RateLimiter rateLimiter = new RateLimiter();
+    /**
+     热点key配置
+     */
+    private HotKey hotKey = new HotKey();
+    /**
+     命令耗时及数据大小指标配置
+     */
+    private Metrics metrics = new Metrics();
+    /**
+     布隆过滤器配置
+     */
+    private BloomFilter bloomFilter = new BloomFilter();
+    /**
+     写缓冲(write-behind)配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class Serializer {
+        /**
+         写入使用的格式, 内置json和smile, 读取时会自动识别所有已注册的格式
+         */
+        private String format = "json";
+        /**
+         类型标识注册表, 标识 -> 类型, 注册后写入短标识代替全限定类名, 未注册的类型仍使用全限定类名
+         */
+        private Map<String, Class<?>> typeIds = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Compression {
+        /**
+         是否压缩写入的value, 关闭后仍可读取已压缩的数据
+         */
+        private boolean enabled = false;
+        /**
+         压缩阈值, 序列化后不小于该大小的value才压缩
+         */
+        private DataSize threshold = DataSize.ofKilobytes(4);
+        /**
+         zstd压缩级别, 1~22, 级别越高压缩率越高, 速度越慢
+         */
+        private int level = 3;
+    }
+
+    @Data
+    public static class RateLimiter {
+        /**
+         Redis不可用时是否放行
+         */
+        private boolean failOpen = true;
+        /**
+         本地记录被拒绝key的最大数量, 记录期间的请求直接在本地拒绝, 不访问Redis
+         */
+        private long localMaximumSize = 10000;
+    }
+
+    @Data
+    public static class HotKey {
+        /**
+         是否开启热点key探测及本地副本
+         */
+        private boolean enabled = false;
+        /**
+         热点阈值, 计数每个统计窗口减半, 稳定访问时约为每个窗口访问次数的2倍
+         */
+        private long threshold = 1000;
+        /**
+         统计窗口
+         */
+        private Duration window = Duration.ofSeconds(10);
+        /**
+         采样率, 每N次访问记录1次(权重为N), 1表示全部记录
+         */
+        private int sampleRate = 1;
+        /**
+         本地副本有效期, 即其他节点写入后本节点读到旧值的最长时间
+         */
+        private Duration localTtl = Duration.ofSeconds(1);
+        /**
+         热点key及本地副本的最大数量
+         */
+        private long localMaximumSize = 1000;
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         是否记录RedisUtils及各存取器的命令耗时和数据大小, 关闭时不产生任何开销
+         */
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class BloomFilter {
+        /**
+         本地镜像与Redis全量同步的间隔, 用于修复丢失的增量通知
+         */
+        private Duration mirrorSyncInterval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class WriteBehind {
+        /**
+         定时刷新间隔
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /**
+         缓冲中待写入的key(Hash为字段)数量达到该值时立即触发刷新
+         */
+        private int maxPendingKeys = 10000;
+        /**
+         分段数, 向上取整为2的幂, 分段越多写入时的锁竞争越少
+         */
+        private int stripes = 16;
+        /**
+         普通value写入时的过期时间
+         */
+        private Duration valueTtl = Duration.ofDays(1);
+    }
+
+}
@@ -0,0 +1,56 @@
+package top.cjf_rb.redis.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ Spring MVC 接口限流, 标注在类上时对该类的所有接口生效, 方法上的注解优先
+ <p>
+ 超出限制时抛出 {@link top.cjf_rb.core.exception.AppException}
+ ({@link top.cjf_rb.core.constant.ErrorCodeEnum#TOO_MANY_REQUESTS}), 并设置 Retry-After 响应头
+
+ @author cjf
+ @see RateLimitInterceptor
+ @since 1.0 */
+@Documented
+@Target({METHOD, TYPE})
+@Retention(RUNTIME)
+public @interface RateLimit {
+
+    /**
+     规则名称, 默认为 类名.方法名
+     */
+    String name() default "";
+
+    /**
+     限流算法
+     */
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.SLIDING_WINDOW;
+
+    /**
+     窗口内允许的次数 或 令牌桶容量
+     */
+    long permits();
+
+    /**
+     窗口时长
+     */
+    long window() default 1;
+
+    /**
+     窗口时长的单位
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     限流维度
+     */
+    RateLimitKeyType keyType() default RateLimitKeyType.GLOBAL;
+
+}
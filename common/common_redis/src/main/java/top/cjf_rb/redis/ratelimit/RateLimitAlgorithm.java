@@ -0,0 +1,20 @@
+package top.cjf_rb.redis.ratelimit;
+
+/**
+ 限流算法
+
+ @author cjf
+ @since 1.0 */
+public enum RateLimitAlgorithm {
+
+    /**
+     滑动窗口, 任意一个窗口时长内最多放行 permits 次, 精确但每次请求占用一个有序集合成员
+     */
+    SLIDING_WINDOW,
+
+    /**
+     令牌桶, 桶容量为 permits, 每个窗口时长补满一次, 允许一定的突发流量
+     */
+    TOKEN_BUCKET
+
+}
@@ -0,0 +1,100 @@
+package top.cjf_rb.redis.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import top.cjf_rb.core.constant.ErrorCodeEnum;
+import top.cjf_rb.core.context.UserContextHolder;
+import top.cjf_rb.core.exception.AppException;
+import top.cjf_rb.core.util.Webs;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 处理{@link RateLimit}注解的拦截器
+
+ @author cjf
+ @since 1.0 */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String GLOBAL_KEY = "global";
+    /**
+     未登录时按IP限流的key前缀, 与用户id区分
+     */
+    private static final String ANONYMOUS_KEY_PREFIX = "ip:";
+
+    private final RedisRateLimiter redisRateLimiter;
+
+    /**
+     接口方法 -> 限流配置, 避免每次请求都解析注解
+     */
+    private final Map<Method, Optional<Limit>> limits = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        Optional<Limit> optional = limits.computeIfAbsent(handlerMethod.getMethod(),
+                                                          method -> this.resolve(handlerMethod));
+        if (optional.isEmpty()) {
+            return true;
+        }
+
+        Limit limit = optional.get();
+        String key = switch (limit.keyType()) {
+            case GLOBAL -> GLOBAL_KEY;
+            case IP -> Webs.getIp(request);
+            // 未登录的调用方共享匿名用户id, 按IP区分, 避免互相占用配额
+            case USER -> UserContextHolder.isLoggedIn() ? String.valueOf(UserContextHolder.getPrincipal()) :
+                    ANONYMOUS_KEY_PREFIX + Webs.getIp(request);
+        };
+
+        RateLimitResult result = redisRateLimiter.tryAcquire(key, limit.rule());
+        if (!result.allowed()) {
+            long retryAfterSeconds = Math.max(TimeUnit.MILLISECONDS.toSeconds(result.retryAfterMillis() + 999), 1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            throw new AppException(ErrorCodeEnum.TOO_MANY_REQUESTS);
+        }
+        return true;
+    }
+
+    private Optional<Limit> resolve(HandlerMethod handlerMethod) {
+        RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            rateLimit = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimit.class);
+        }
+        if (rateLimit == null) {
+            return Optional.empty();
+        }
+
+        String name = StringUtils.hasText(rateLimit.name()) ? rateLimit.name() :
+                handlerMethod.getBeanType()
+                             .getSimpleName() + "." + handlerMethod.getMethod()
+                                                                   .getName();
+        Duration window = Duration.of(rateLimit.window(), rateLimit.unit()
+                                                                   .toChronoUnit());
+        RateLimitRule rule = new RateLimitRule(name, rateLimit.algorithm(), rateLimit.permits(), window);
+        return Optional.of(new Limit(rule, rateLimit.keyType()));
+    }
+
+    private record Limit(RateLimitRule rule, RateLimitKeyType keyType) {
+    }
+
+}
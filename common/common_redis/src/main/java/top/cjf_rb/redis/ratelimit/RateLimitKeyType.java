@@ -0,0 +1,25 @@
+package top.cjf_rb.redis.ratelimit;
+
+/**
+ 限流维度
+
+ @author cjf
+ @since 1.0 */
+public enum RateLimitKeyType {
+
+    /**
+     全局, 所有调用共享同一个配额
+     */
+    GLOBAL,
+
+    /**
+     按请求IP
+     */
+    IP,
+
+    /**
+     按当前登录用户, 未登录时按请求IP
+     */
+    USER
+
+}
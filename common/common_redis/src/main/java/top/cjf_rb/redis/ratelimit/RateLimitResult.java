@@ -0,0 +1,21 @@
+package top.cjf_rb.redis.ratelimit;
+
+/**
+ 限流结果
+
+ @param allowed          是否放行
+ @param remaining        放行时剩余的次数, 拒绝时为0
+ @param retryAfterMillis 拒绝时建议的重试等待时长, 放行时为0
+ @author cjf
+ @since 1.0 */
+public record RateLimitResult(boolean allowed, long remaining, long retryAfterMillis) {
+
+    static RateLimitResult accepted(long remaining) {
+        return new RateLimitResult(true, remaining, 0);
+    }
+
+    static RateLimitResult rejected(long retryAfterMillis) {
+        return new RateLimitResult(false, 0, retryAfterMillis);
+    }
+
+}
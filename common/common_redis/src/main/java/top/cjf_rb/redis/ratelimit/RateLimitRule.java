@@ -0,0 +1,33 @@
+package top.cjf_rb.redis.ratelimit;
+
+import java.time.Duration;
+
+/**
+ 限流规则
+
+ @param name      规则名称, 作为Redis key和指标的一部分
+ @param algorithm 限流算法
+ @param permits   窗口内允许的次数(滑动窗口) 或 桶容量(令牌桶)
+ @param window    窗口时长(滑动窗口) 或 补满令牌桶所需的时长(令牌桶)
+ @author cjf
+ @since 1.0 */
+public record RateLimitRule(String name, RateLimitAlgorithm algorithm, long permits, Duration window) {
+
+    public RateLimitRule {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        if (window.toMillis() <= 0) {
+            throw new IllegalArgumentException("window must be at least 1ms");
+        }
+    }
+
+    public static RateLimitRule slidingWindow(String name, long permits, Duration window) {
+        return new RateLimitRule(name, RateLimitAlgorithm.SLIDING_WINDOW, permits, window);
+    }
+
+    public static RateLimitRule tokenBucket(String name, long permits, Duration window) {
+        return new RateLimitRule(name, RateLimitAlgorithm.TOKEN_BUCKET, permits, window);
+    }
+
+}
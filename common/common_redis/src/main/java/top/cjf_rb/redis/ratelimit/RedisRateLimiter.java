@@ -0,0 +1,277 @@
+package top.cjf_rb.redis.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ 基于Redis Lua脚本的分布式限流
+ <ul>
+ <li>滑动窗口和令牌桶两种算法, 时间取自Redis服务端, 不受各节点时钟偏差影响</li>
+ <li>本地预检: 被Redis拒绝的key在建议的重试时间内直接在本地拒绝, 不再访问Redis</li>
+ <li>异步接口{@link #tryAcquireAsync}不阻塞调用线程, 可用于网关等响应式场景</li>
+ <li>指标: rate.limiter.requests, 标签 name/result(accepted|rejected)/source(redis|local|fallback)</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "app:rate-limit:";
+    private static final String METRIC_NAME = "rate.limiter.requests";
+
+    /**
+     滑动窗口
+     KEYS[1]: key, ARGV[1]: 窗口内允许的次数, ARGV[2]: 窗口时长(ms), ARGV[3]: 本次申请的次数, ARGV[4]: 成员前缀(唯一)
+     返回 {1, 剩余次数} 或 {0, 重试等待时长(ms)}
+     */
+    private static final String SLIDING_WINDOW_SCRIPT = """
+            local key = KEYS[1]
+            local limit = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local permits = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+            local count = redis.call('ZCARD', key)
+            if count + permits > limit then
+                local index = count + permits - limit - 1
+                local oldest = redis.call('ZRANGE', key, index, index, 'WITHSCORES')
+                local retry = window
+                if oldest[2] then
+                    retry = tonumber(oldest[2]) + window - now
+                end
+                return {0, retry}
+            end
+            for i = 1, permits do
+                redis.call('ZADD', key, now, ARGV[4] .. ':' .. i)
+            end
+            redis.call('PEXPIRE', key, window)
+            return {1, limit - count - permits}
+            """;
+
+    /**
+     令牌桶
+     KEYS[1]: key, ARGV[1]: 桶容量, ARGV[2]: 补满所需时长(ms), ARGV[3]: 本次申请的令牌数
+     返回 {1, 剩余令牌数} 或 {0, 重试等待时长(ms)}
+     */
+    private static final String TOKEN_BUCKET_SCRIPT = """
+            local key = KEYS[1]
+            local capacity = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local permits = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local rate = capacity / window
+            local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+            local tokens = tonumber(bucket[1])
+            local ts = tonumber(bucket[2])
+            if tokens == nil or ts == nil then
+                tokens = capacity
+                ts = now
+            end
+            if now > ts then
+                tokens = math.min(capacity, tokens + (now - ts) * rate)
+            end
+            if tokens < permits then
+                return {0, math.ceil((permits - tokens) / rate)}
+            end
+            tokens = tokens - permits
+            redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', key, window)
+            return {1, math.floor(tokens)}
+            """;
+
+    private static final String SLIDING_WINDOW_SHA = DigestUtils.sha1Hex(SLIDING_WINDOW_SCRIPT);
+    private static final String TOKEN_BUCKET_SHA = DigestUtils.sha1Hex(TOKEN_BUCKET_SCRIPT);
+
+    private final RedissonClient redissonClient;
+    private final AppRedisProperties appRedisProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private RScript script;
+    /**
+     被拒绝的key -> 本地拒绝截止时间(System.nanoTime)
+     */
+    private Cache<String, Long> rejectedUntil;
+    /**
+     滑动窗口成员的唯一前缀: 节点标识 + 序号
+     */
+    private final String nodeId = Long.toHexString(ThreadLocalRandom.current()
+                                                                   .nextLong());
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        script = redissonClient.getScript(StringCodec.INSTANCE);
+        rejectedUntil = Caffeine.newBuilder()
+                                .maximumSize(appRedisProperties.getRateLimiter()
+                                                               .getLocalMaximumSize())
+                                .expireAfter(Expiry.<String, Long>writing(
+                                        (key, until) -> Duration.ofNanos(Math.max(until - System.nanoTime(), 0))))
+                                .build();
+    }
+
+    /**
+     申请一次
+
+     @param key  限流维度的标识, 如用户id、IP
+     @param rule 限流规则
+     @return 限流结果
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule) {
+        return this.tryAcquire(key, rule, 1);
+    }
+
+    /**
+     申请多次
+
+     @param key     限流维度的标识, 如用户id、IP
+     @param rule    限流规则
+     @param permits 申请的次数
+     @return 限流结果
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule, long permits) {
+        return this.tryAcquireAsync(key, rule, permits)
+                   .toCompletableFuture()
+                   .join();
+    }
+
+    /**
+     异步申请一次, 不阻塞调用线程
+
+     @param key  限流维度的标识, 如用户id、IP
+     @param rule 限流规则
+     @return 限流结果
+     */
+    public CompletionStage<RateLimitResult> tryAcquireAsync(String key, RateLimitRule rule) {
+        return this.tryAcquireAsync(key, rule, 1);
+    }
+
+    /**
+     异步申请多次, 不阻塞调用线程
+
+     @param key     限流维度的标识, 如用户id、IP
+     @param rule    限流规则
+     @param permits 申请的次数
+     @return 限流结果, Redis不可用时按配置放行或拒绝, 不会异常完成
+     */
+    public CompletionStage<RateLimitResult> tryAcquireAsync(String key, RateLimitRule rule, long permits) {
+        // 超过上限的申请永远不会成功
+        if (permits > rule.permits()) {
+            this.count(rule, false, "local");
+            return CompletableFuture.completedFuture(RateLimitResult.rejected(rule.window()
+                                                                                  .toMillis()));
+        }
+
+        String redisKey = KEY_PREFIX + rule.name() + ":" + key;
+        Long until = rejectedUntil.getIfPresent(redisKey);
+        if (until != null) {
+            long waitNanos = until - System.nanoTime();
+            if (waitNanos > 0) {
+                this.count(rule, false, "local");
+                return CompletableFuture.completedFuture(
+                        RateLimitResult.rejected(Math.max(TimeUnit.NANOSECONDS.toMillis(waitNanos), 1)));
+            }
+        }
+
+        return this.eval(redisKey, rule, permits)
+                   .handle((reply, ex) -> ex == null ? this.onReply(redisKey, rule, reply) : this.onError(rule, ex));
+    }
+
+    private CompletionStage<List<Long>> eval(String redisKey, RateLimitRule rule, long permits) {
+        List<Object> keys = List.of(redisKey);
+        String lua;
+        String sha;
+        Object[] args;
+        if (rule.algorithm() == RateLimitAlgorithm.SLIDING_WINDOW) {
+            lua = SLIDING_WINDOW_SCRIPT;
+            sha = SLIDING_WINDOW_SHA;
+            args = new Object[]{String.valueOf(rule.permits()), String.valueOf(rule.window()
+                                                                                   .toMillis()),
+                                String.valueOf(permits), nodeId + ":" + sequence.incrementAndGet()};
+        } else {
+            lua = TOKEN_BUCKET_SCRIPT;
+            sha = TOKEN_BUCKET_SHA;
+            args = new Object[]{String.valueOf(rule.permits()), String.valueOf(rule.window()
+                                                                                   .toMillis()),
+                                String.valueOf(permits)};
+        }
+
+        // 优先EVALSHA, 脚本未缓存时(如Redis重启)使用EVAL, 同时会在服务端缓存脚本
+        return script.<List<Long>>evalShaAsync(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.MULTI, keys, args)
+                     .exceptionallyCompose(ex -> this.isNoScriptError(ex) ?
+                             script.evalAsync(RScript.Mode.READ_WRITE, lua, RScript.ReturnType.MULTI, keys, args) :
+                             CompletableFuture.failedStage(ex));
+    }
+
+    private RateLimitResult onReply(String redisKey, RateLimitRule rule, List<Long> reply) {
+        if (reply.get(0) == 1L) {
+            this.count(rule, true, "redis");
+            return RateLimitResult.accepted(reply.get(1));
+        }
+
+        long retryAfterMillis = Math.max(reply.get(1), 1);
+        rejectedUntil.put(redisKey, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        this.count(rule, false, "redis");
+        return RateLimitResult.rejected(retryAfterMillis);
+    }
+
+    private RateLimitResult onError(RateLimitRule rule, Throwable ex) {
+        boolean failOpen = appRedisProperties.getRateLimiter()
+                                             .isFailOpen();
+        log.warn("Rate limiter [{}] unavailable, {} the request", rule.name(), failOpen ? "accept" : "reject", ex);
+        this.count(rule, failOpen, "fallback");
+        return failOpen ? RateLimitResult.accepted(0) : RateLimitResult.rejected(rule.window()
+                                                                                     .toMillis());
+    }
+
+    private boolean isNoScriptError(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(RateLimitRule rule, boolean accepted, String source) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Counter.builder(METRIC_NAME)
+               .description("限流请求数")
+               .tag("name", rule.name())
+               .tag("result", accepted ? "accepted" : "rejected")
+               .tag("source", source)
+               .register(meterRegistry)
+               .increment();
+    }
+
+}
@@ -0,0 +1,29 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ JSON格式, 作为读取时的兜底格式, 兼容旧数据
+
+ @author cjf
+ @since 1.0 */
+public class JsonRedisValueFormat implements RedisValueFormat {
+
+    public static final String NAME = "json";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ObjectMapper createMapper(ObjectMapper jsonMapper) {
+        return jsonMapper;
+    }
+
+    @Override
+    public boolean matches(byte[] bytes) {
+        return true;
+    }
+
+}
@@ -0,0 +1,121 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ Redis value编解码器
+ <ul>
+ <li>写入: 使用配置的格式</li>
+ <li>读取: 根据数据头部识别格式, 无法识别时按JSON读取, 保证切换格式期间旧数据仍可读</li>
+ <li>压缩: 序列化后的数据交由{@link RedisValueCompressor}按阈值压缩, 读取时透明解压</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+public class RedisValueCodec implements RedisSerializer<Object> {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final ObjectMapper writer;
+    /**
+     读取时按顺序匹配, JSON格式位于最后作为兜底
+     */
+    private final List<Map.Entry<RedisValueFormat, ObjectMapper>> readers;
+    private final RedisValueCompressor compressor;
+
+    RedisValueCodec(ObjectMapper writer, List<Map.Entry<RedisValueFormat, ObjectMapper>> readers,
+                    RedisValueCompressor compressor) {
+        this.writer = writer;
+        this.readers = readers;
+        this.compressor = compressor;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+
+        try {
+            return compressor.compress(writer.writeValueAsBytes(value));
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not write value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        return this.deserialize(bytes, Object.class);
+    }
+
+    /**
+     按指定类型读取
+
+     @param bytes 原始数据
+     @param clazz 值类型的Class对象
+     @param <T>   值的类型
+     @return 值对象, 数据为空时返回null
+     */
+    public <T> T deserialize(@Nullable byte[] bytes, Class<T> clazz) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            byte[] data = compressor.decompress(bytes);
+            return this.readerFor(data)
+                       .readValue(data, clazz);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     按指定类型读取（使用 TypeReference 支持复杂泛型）
+
+     @param bytes         原始数据
+     @param typeReference 值类型的TypeReference对象
+     @param <T>           值的类型
+     @return 值对象, 数据为空时返回null
+     */
+    public <T> T deserialize(@Nullable byte[] bytes, TypeReference<T> typeReference) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            byte[] data = compressor.decompress(bytes);
+            return this.readerFor(data)
+                       .readValue(data, typeReference);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     识别数据格式
+     */
+    private ObjectMapper readerFor(byte[] bytes) {
+        for (Map.Entry<RedisValueFormat, ObjectMapper> reader : readers) {
+            if (reader.getKey()
+                      .matches(bytes)) {
+                return reader.getValue();
+            }
+        }
+        return writer;
+    }
+
+}
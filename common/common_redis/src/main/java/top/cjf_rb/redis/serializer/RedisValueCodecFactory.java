@@ -0,0 +1,70 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ 根据配置创建{@link RedisValueCodec}
+
+ @author cjf
+ @since 1.0 */
+@Component
+@RequiredArgsConstructor
+public class RedisValueCodecFactory {
+
+    private final List<RedisValueFormat> formats;
+    private final AppRedisProperties appRedisProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     基于JSON ObjectMapper创建编解码器, 各格式的ObjectMapper均由其派生
+
+     @param jsonMapper 已配置好的JSON ObjectMapper
+     @return 编解码器
+     */
+    public RedisValueCodec create(ObjectMapper jsonMapper) {
+        String formatName = appRedisProperties.getSerializer()
+                                              .getFormat();
+
+        ObjectMapper writer = null;
+        List<Map.Entry<RedisValueFormat, ObjectMapper>> readers = new ArrayList<>(formats.size());
+        Map.Entry<RedisValueFormat, ObjectMapper> jsonReader = null;
+        for (RedisValueFormat format : formats) {
+            ObjectMapper mapper = format.createMapper(jsonMapper);
+            if (format.name()
+                      .equalsIgnoreCase(formatName)) {
+                writer = mapper;
+            }
+
+            if (JsonRedisValueFormat.NAME.equals(format.name())) {
+                jsonReader = Map.entry(format, mapper);
+            } else {
+                readers.add(Map.entry(format, mapper));
+            }
+        }
+
+        if (writer == null) {
+            throw new IllegalArgumentException("未知的Redis value格式: " + formatName);
+        }
+        // JSON兜底, 兼容旧数据
+        if (jsonReader != null) {
+            readers.add(jsonReader);
+        }
+        AppRedisProperties.Compression compression = appRedisProperties.getCompression();
+        RedisValueCompressor compressor = new RedisValueCompressor(compression.isEnabled(),
+                                                                   (int) compression.getThreshold()
+                                                                                    .toBytes(),
+                                                                   compression.getLevel(), meterRegistry);
+        return new RedisValueCodec(writer, readers, compressor);
+    }
+
+}
@@ -0,0 +1,127 @@
+package top.cjf_rb.redis.serializer;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+
+/**
+ Redis value压缩
+ <ul>
+ <li>写入: 序列化后不小于阈值的数据使用zstd压缩, 并在头部加一个标记字节</li>
+ <li>读取: 带标记字节的数据先解压, 其余数据原样返回, 因此开关压缩不影响已有数据的读取</li>
+ <li>标记字节为0x01, 不会与JSON及Smile(":)\n")的首字节冲突</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+public class RedisValueCompressor {
+
+    /**
+     zstd压缩数据的标记字节
+     */
+    static final byte ZSTD_HEADER = 0x01;
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int level;
+
+    /**
+     序列化后(压缩前)的大小, 用于调整阈值
+     */
+    @Nullable
+    private final DistributionSummary serializedSize;
+    /**
+     实际写入Redis的大小
+     */
+    @Nullable
+    private final DistributionSummary storedSize;
+
+    /**
+     @param enabled       是否压缩写入的数据
+     @param threshold     压缩阈值(字节)
+     @param level         zstd压缩级别
+     @param meterRegistry 指标注册中心, 为空时不记录大小分布
+     */
+    public RedisValueCompressor(boolean enabled, int threshold, int level, @Nullable MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.level = level;
+        if (meterRegistry != null) {
+            this.serializedSize = DistributionSummary.builder("redis.value.serialized.size")
+                                                     .description("序列化后(压缩前)的value大小")
+                                                     .baseUnit("bytes")
+                                                     .publishPercentileHistogram()
+                                                     .register(meterRegistry);
+            this.storedSize = DistributionSummary.builder("redis.value.stored.size")
+                                                 .description("实际写入Redis的value大小")
+                                                 .baseUnit("bytes")
+                                                 .publishPercentileHistogram()
+                                                 .register(meterRegistry);
+        } else {
+            this.serializedSize = null;
+            this.storedSize = null;
+        }
+    }
+
+    /**
+     按阈值压缩
+
+     @param bytes 序列化后的数据
+     @return 写入Redis的数据
+     */
+    public byte[] compress(byte[] bytes) {
+        byte[] stored = bytes;
+        if (enabled && bytes.length >= threshold) {
+            byte[] compressed = this.zstdCompress(bytes);
+            // 压缩后未变小则保留原数据, 避免读取时白白解压
+            if (compressed.length < bytes.length) {
+                stored = compressed;
+            }
+        }
+
+        if (serializedSize != null) {
+            serializedSize.record(bytes.length);
+            storedSize.record(stored.length);
+        }
+        return stored;
+    }
+
+    /**
+     带标记字节的数据解压, 其余数据原样返回
+
+     @param bytes Redis中读取的数据
+     @return 序列化后的数据
+     */
+    public byte[] decompress(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != ZSTD_HEADER) {
+            return bytes;
+        }
+
+        long size = Zstd.getFrameContentSize(bytes, 1, bytes.length - 1);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new SerializationException("Invalid zstd frame content size: " + size);
+        }
+
+        byte[] decompressed = new byte[(int) size];
+        long result = Zstd.decompressByteArray(decompressed, 0, decompressed.length, bytes, 1, bytes.length - 1);
+        if (Zstd.isError(result)) {
+            throw new SerializationException("Could not decompress value: " + Zstd.getErrorName(result));
+        }
+        return decompressed;
+    }
+
+    private byte[] zstdCompress(byte[] bytes) {
+        byte[] compressed = new byte[(int) Zstd.compressBound(bytes.length) + 1];
+        compressed[0] = ZSTD_HEADER;
+        long size = Zstd.compressByteArray(compressed, 1, compressed.length - 1, bytes, 0, bytes.length, level);
+        if (Zstd.isError(size)) {
+            throw new SerializationException("Could not compress value: " + Zstd.getErrorName(size));
+        }
+        return Arrays.copyOf(compressed, (int) size + 1);
+    }
+
+}
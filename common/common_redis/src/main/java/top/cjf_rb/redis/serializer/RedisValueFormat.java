@@ -0,0 +1,35 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ Redis value的存储格式, 注册为Spring Bean即可被{@link RedisValueCodecFactory}识别
+
+ @author cjf
+ @since 1.0 */
+public interface RedisValueFormat {
+
+    /**
+     格式名称, 对应配置 app.redis.serializer.format
+
+     @return 格式名称
+     */
+    String name();
+
+    /**
+     基于已配置好的JSON ObjectMapper派生当前格式的ObjectMapper, 需保留原有的模块与类型配置
+
+     @param jsonMapper JSON ObjectMapper
+     @return 当前格式的ObjectMapper
+     */
+    ObjectMapper createMapper(ObjectMapper jsonMapper);
+
+    /**
+     数据是否为当前格式, 用于读取时识别格式
+
+     @param bytes 原始数据, 非空
+     @return 是则true, 反之, false
+     */
+    boolean matches(byte[] bytes);
+
+}
@@ -0,0 +1,59 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ 基于注册表的类型标识解析
+ <ul>
+ <li>已注册的类型写入短标识, 未注册的类型仍写入全限定类名</li>
+ <li>读取时先查注册表, 查不到则按全限定类名解析, 因此可读取旧数据</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+public class RegistryTypeIdResolver extends ClassNameIdResolver {
+
+    private final Map<Class<?>, String> classToId = new HashMap<>();
+    private final Map<String, Class<?>> idToClass = new HashMap<>();
+
+    /**
+     @param typeIds 标识 -> 类型
+     @param ptv     多态类型校验器
+     */
+    public RegistryTypeIdResolver(Map<String, Class<?>> typeIds, PolymorphicTypeValidator ptv) {
+        super(TypeFactory.defaultInstance()
+                         .constructType(Object.class), TypeFactory.defaultInstance(), Collections.emptyList(), ptv);
+        typeIds.forEach((id, clazz) -> {
+            classToId.put(clazz, id);
+            idToClass.put(id, clazz);
+        });
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+        String id = classToId.get(value.getClass());
+        return id != null ? id : super.idFromValue(value);
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> type) {
+        String id = classToId.get(type);
+        return id != null ? id : super.idFromValueAndType(value, type);
+    }
+
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+        Class<?> clazz = idToClass.get(id);
+        return clazz != null ? context.constructType(clazz) : super.typeFromId(context, id);
+    }
+
+}
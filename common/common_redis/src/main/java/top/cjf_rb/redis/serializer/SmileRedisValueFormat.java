@@ -0,0 +1,34 @@
+package top.cjf_rb.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ Jackson Smile 二进制格式, 体积更小且解析更快, 每个值以 ":)\n" 头部开头以便识别
+
+ @author cjf
+ @since 1.0 */
+public class SmileRedisValueFormat implements RedisValueFormat {
+
+    public static final String NAME = "smile";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ObjectMapper createMapper(ObjectMapper jsonMapper) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                                                .enable(SmileGenerator.Feature.WRITE_HEADER)
+                                                .build();
+        return jsonMapper.copyWith(smileFactory);
+    }
+
+    @Override
+    public boolean matches(byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == ':' && bytes[1] == ')' && bytes[2] == '\n';
+    }
+
+}
@@ -0,0 +1,121 @@
+package top.cjf_rb.redis.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ 按数据库索引创建RedisTemplate
+ <ul>
+ <li>所有数据库复用主连接工厂的客户端配置, 共享同一个ClientResources(事件循环与计时器线程)</li>
+ <li>每个数据库使用一条共享的原生连接, 连接池(如已配置)仅用于阻塞/事务命令</li>
+ <li>支持单机与哨兵模式, 集群模式只有0号数据库</li>
+ <li>应用关闭时释放所有创建的连接工厂</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisDbTemplateFactory implements DisposableBean {
+
+    private final LettuceConnectionFactory redisConnectionFactory;
+
+    private final Map<Integer, LettuceConnectionFactory> dbFactories = new ConcurrentHashMap<>();
+    private final Map<Integer, RedisTemplate<Object, Object>> dbTemplates = new ConcurrentHashMap<>();
+
+    /**
+     获取指定数据库的RedisTemplate, 首次调用时创建
+
+     @param dbIndex 数据库索引
+     @return 对应数据库的RedisTemplate实例
+     */
+    public RedisTemplate<Object, Object> getTemplate(int dbIndex) {
+        return dbTemplates.computeIfAbsent(dbIndex, index -> {
+            LettuceConnectionFactory connectionFactory = dbFactories.computeIfAbsent(index,
+                                                                                     this::createConnectionFactory);
+
+            RedisTemplate<Object, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.afterPropertiesSet(); // 初始化模板
+            return template;
+        });
+    }
+
+    /**
+     创建指定数据库的连接工厂
+
+     @param dbIndex 数据库索引
+     @return 已初始化的连接工厂
+     */
+    private LettuceConnectionFactory createConnectionFactory(int dbIndex) {
+        LettuceClientConfiguration clientConfiguration = redisConnectionFactory.getClientConfiguration();
+        if (clientConfiguration.getClientResources()
+                               .isEmpty()) {
+            log.warn("Redis客户端配置未指定ClientResources, 数据库{}将创建独立的事件循环线程", dbIndex);
+        }
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(createConfiguration(dbIndex),
+                                                                                  clientConfiguration);
+        connectionFactory.setShareNativeConnection(true);
+        connectionFactory.afterPropertiesSet();
+        return connectionFactory;
+    }
+
+    /**
+     基于主连接工厂的配置创建指定数据库的连接配置
+
+     @param dbIndex 数据库索引
+     @return 连接配置
+     */
+    private RedisConfiguration createConfiguration(int dbIndex) {
+        if (redisConnectionFactory.isClusterAware()) {
+            throw new IllegalArgumentException("Redis集群仅支持0号数据库, dbIndex: " + dbIndex);
+        }
+
+        RedisSentinelConfiguration sentinelConfiguration = redisConnectionFactory.getSentinelConfiguration();
+        if (sentinelConfiguration != null) {
+            RedisSentinelConfiguration newSentinelConfig = new RedisSentinelConfiguration();
+            newSentinelConfig.setMaster(sentinelConfiguration.getMaster());
+            newSentinelConfig.setSentinels(sentinelConfiguration.getSentinels());
+            newSentinelConfig.setUsername(sentinelConfiguration.getUsername());
+            newSentinelConfig.setPassword(sentinelConfiguration.getPassword());
+            newSentinelConfig.setSentinelUsername(sentinelConfiguration.getSentinelUsername());
+            newSentinelConfig.setSentinelPassword(sentinelConfiguration.getSentinelPassword());
+            newSentinelConfig.setDatabase(dbIndex);
+            return newSentinelConfig;
+        }
+
+        RedisStandaloneConfiguration standaloneConfiguration = redisConnectionFactory.getStandaloneConfiguration();
+        RedisStandaloneConfiguration newStandaloneConfig = new RedisStandaloneConfiguration(
+                standaloneConfiguration.getHostName(), standaloneConfiguration.getPort());
+        newStandaloneConfig.setUsername(standaloneConfiguration.getUsername());
+        newStandaloneConfig.setPassword(standaloneConfiguration.getPassword());
+        newStandaloneConfig.setDatabase(dbIndex);
+        return newStandaloneConfig;
+    }
+
+    @Override
+    public void destroy() {
+        dbTemplates.clear();
+        dbFactories.forEach((dbIndex, connectionFactory) -> {
+            try {
+                connectionFactory.destroy();
+            } catch (Exception e) {
+                log.warn("关闭数据库{}的Redis连接工厂失败", dbIndex, e);
+            }
+        });
+        dbFactories.clear();
+    }
+}
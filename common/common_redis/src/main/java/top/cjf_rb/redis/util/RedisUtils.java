@@ -3,23 +3,35 @@ package top.cjf_rb.redis.util;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
 import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
+import top.cjf_rb.redis.hotkey.HotKeyDetector;
+import top.cjf_rb.redis.metrics.RedisMetrics;
+import top.cjf_rb.redis.serializer.RedisValueCodec;
+import top.cjf_rb.redis.serializer.RedisValueCodecFactory;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 /**
  Redis工具类，提供Redis操作的便捷方法
@@ -36,14 +48,46 @@ public class RedisUtils {
 
     // 默认Redis数据库索引
     public static int REDIS_DB_DEFAULT = 0;
+    /**
+     非集群模式下扫描进度中的节点名称
+     */
+    private static final String STANDALONE_NODE = "standalone";
+    /**
+     递增并在需要时设置过期时间的脚本, SHA1由{@link DefaultRedisScript}计算并缓存
+     <ul>
+     <li>KEYS[1]: 键</li>
+     <li>ARGV[1]: 递增值</li>
+     <li>ARGV[2]: 过期时间(毫秒), 小于等于0时不设置</li>
+     <li>ARGV[3]: 1表示每次重置过期时间, 0表示仅在key没有过期时间时设置</li>
+     </ul>
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+            "local value = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+                    "local ttl = tonumber(ARGV[2]) " +
+                    "if ttl > 0 and (ARGV[3] == '1' or redis.call('PTTL', KEYS[1]) == -1) then " +
+                    "redis.call('PEXPIRE', KEYS[1], ttl) end " +
+                    "return value", Long.class);
     // Redis模板对象，用于执行Redis操作
     private final RedisTemplate<Object, Object> redisTemplate;
     private final LettuceConnectionFactory redisConnectionFactory;
-    // JSON对象映射器，用于复杂类型的序列化/反序列化
+    // JSON对象映射器，作为各序列化格式的基础配置
     private final ObjectMapper objectMapper;
+    private final RedisValueCodecFactory redisValueCodecFactory;
+
+    // 非默认数据库的RedisTemplate, 共享客户端资源
+    private final RedisDbTemplateFactory redisDbTemplateFactory;
+    // 热点key探测, 热点key优先读取本地副本
+    private final HotKeyDetector hotKeyDetector;
+    // 命令耗时及数据大小指标, 未开启时不产生开销
+    private final RedisMetrics redisMetrics;
+
+    // value编解码器，写入使用配置的格式，读取时自动识别格式
+    private RedisValueCodec valueCodec;
 
-    // 为每个数据库维护一个独立的RedisTemplate，每个模板使用独立的连接工厂
-    private final Map<Integer, RedisTemplate<Object, Object>> dbTemplates = new ConcurrentHashMap<>();
+    @PostConstruct
+    private void init() {
+        this.valueCodec = redisValueCodecFactory.create(objectMapper);
+    }
 
     /**
      根据数据库索引获取对应的RedisTemplate实例
@@ -56,43 +100,74 @@ public class RedisUtils {
             return redisTemplate;
         }
 
-        return dbTemplates.computeIfAbsent(dbIndex, index -> {
-            // 获取原始配置并创建新的配置，设置数据库索引
-            RedisStandaloneConfiguration standaloneConfiguration = redisConnectionFactory.getStandaloneConfiguration();
-
-            // 创建新的独立配置并设置数据库索引
-            RedisStandaloneConfiguration newStandaloneConfig = new RedisStandaloneConfiguration(
-                    standaloneConfiguration.getHostName(), standaloneConfiguration.getPort());
-            newStandaloneConfig.setDatabase(index);
-            newStandaloneConfig.setPassword(standaloneConfiguration.getPassword());
-
-            // 为每个数据库创建独立的连接工厂配置
-            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(newStandaloneConfig,
-                                                                                      redisConnectionFactory.getClientConfiguration());
-            connectionFactory.afterPropertiesSet();
-
-            RedisTemplate<Object, Object> template = new RedisTemplate<>();
-            template.setConnectionFactory(connectionFactory);
-            template.afterPropertiesSet(); // 初始化模板
-            return template;
-        });
+        return redisDbTemplateFactory.getTemplate(dbIndex);
     }
 
     /**
-     在指定数据库索引上执行操作
+     在指定数据库索引上执行操作, 开启指标时按命令和key前缀记录耗时
 
+     @param command  命令名称, 用作指标标签
+     @param key      键, 仅取前缀用作指标标签, 批量命令取第一个键, 可为null
      @param dbIndex  数据库索引
      @param callback 回调函数
      @param <T>      返回值类型
      @return 执行结果
      */
-    private <T> T executeInDB(int dbIndex, RedisCallback<T> callback) {
-        if (dbIndex == REDIS_DB_DEFAULT) {
-            return redisTemplate.execute(callback);
+    private <T> T executeInDB(String command, String key, int dbIndex, RedisCallback<T> callback) {
+        // 直接使用指定数据库的模板，无需切换数据库
+        RedisTemplate<Object, Object> template = getTemplateForDB(dbIndex);
+        if (!redisMetrics.isEnabled()) {
+            return template.execute(callback);
         }
 
-        // 直接使用指定数据库的模板，无需切换数据库
-        return getTemplateForDB(dbIndex).execute(callback);
+        return redisMetrics.time(command, RedisMetrics.prefixOf(key), () -> template.execute(callback));
+    }
+
+    /**
+     开启指标时按命令和key前缀记录数据大小
+
+     @param command  命令名称
+     @param key      键
+     @param rawValue 序列化后的数据, 为null时不记录
+     */
+    private void recordPayload(String command, String key, byte[] rawValue) {
+        if (rawValue != null && redisMetrics.isEnabled()) {
+            redisMetrics.payload(command, RedisMetrics.prefixOf(key), rawValue.length);
+        }
+    }
+
+    /**
+     读取字符串值的原始数据, 热点key优先使用本地副本
+
+     @param key     键
+     @param dbIndex 数据库索引
+     @return 原始数据, 不存在时为null
+     */
+    private byte[] getRaw(String key, int dbIndex) {
+        return hotKeyDetector.get(hotKeyOf(key, dbIndex), () -> {
+            byte[] rawValue = executeInDB("get", key, dbIndex, connection -> connection.stringCommands()
+                                                                                      .get(getBytes(key)));
+            recordPayload("get", key, rawValue);
+            return rawValue;
+        });
+    }
+
+    /**
+     清除热点key的本地副本, 在写入完成后调用, 写入失败时同样需要调用
+     <ul>
+     <li>写入前清除时, 并发的读取可能在写入生效前把旧值放回副本</li>
+     <li>写入后清除时, 读取期间发生的清除会使该次读取不回填副本, 见{@link HotKeyDetector#get}</li>
+     </ul>
+     */
+    private void invalidateHotKey(String key, int dbIndex) {
+        hotKeyDetector.invalidate(hotKeyOf(key, dbIndex));
+    }
+
+    /**
+     热点统计使用的key, 非默认数据库的key加上数据库索引前缀
+     */
+    private static String hotKeyOf(String key, int dbIndex) {
+        return dbIndex == REDIS_DB_DEFAULT ? key : dbIndex + "/" + key;
     }
 
     /**
@@ -148,19 +223,24 @@ public class RedisUtils {
      @param <T>     值的类型
      */
     public <T> boolean set(String key, T value, long timeout, TimeUnit unit, int dbIndex) {
-        return Boolean.TRUE.equals(executeInDB(dbIndex, connection -> {
-            RedisStringCommands stringCommands = connection.stringCommands();
+        try {
+            return Boolean.TRUE.equals(executeInDB("set", key, dbIndex, connection -> {
+                RedisStringCommands stringCommands = connection.stringCommands();
 
-            // 使用JSON序列化替代Java原生序列化
-            byte[] serializedValue = serializeValue(value);
+                // 使用配置的格式(默认JSON)序列化替代Java原生序列化
+                byte[] serializedValue = serializeValue(value);
+                recordPayload("set", key, serializedValue);
 
-            if (timeout > 0) {
-                return stringCommands.set(key.getBytes(), serializedValue, Expiration.from(timeout, unit),
-                                          RedisStringCommands.SetOption.UPSERT);
-            } else {
-                return stringCommands.set(key.getBytes(), serializedValue);
-            }
-        }));
+                if (timeout > 0) {
+                    return stringCommands.set(key.getBytes(), serializedValue, Expiration.from(timeout, unit),
+                                              RedisStringCommands.SetOption.UPSERT);
+                } else {
+                    return stringCommands.set(key.getBytes(), serializedValue);
+                }
+            }));
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
     }
 
     /**
@@ -185,24 +265,21 @@ public class RedisUtils {
      @return 值对象
      */
     public <T> T get(String key, Class<T> clazz, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
-            // 使用新的 stringCommands API
-            RedisStringCommands stringCommands = connection.stringCommands();
-            byte[] value = stringCommands.get(getBytes(key));
+        byte[] value = getRaw(key, dbIndex);
 
-            if (value == null) {
-                return null;
-            }
+        if (value == null) {
+            return null;
+        }
 
-            // 使用JSON反序列化替代Java原生反序列化
-            try {
-                return objectMapper.readValue(value, clazz);
-            } catch (Exception e) {
-                throw new SerializationException("Failed to deserialize value using JSON", e);
-            }
-        });
+        // 按数据头部识别格式反序列化, 替代Java原生反序列化
+        try {
+            return valueCodec.deserialize(value, clazz);
+        } catch (Exception e) {
+            throw new SerializationException("Failed to deserialize value", e);
+        }
     }
 
+
     /**
      获取字符串值（使用 TypeReference 支持复杂泛型）
 
@@ -229,22 +306,14 @@ public class RedisUtils {
      */
     @SneakyThrows
     public <T> T get(String key, TypeReference<T> typeReference, int dbIndex) {
-
-        RedisTemplate<Object, Object> template = getTemplateForDB(dbIndex);
-        byte[] value = template.execute((RedisCallback<byte[]>) connection -> {
-            RedisStringCommands stringCommands = connection.stringCommands();
-            return stringCommands.get(getBytes(key));
-        });
+        byte[] value = getRaw(key, dbIndex);
 
         if (value == null) {
             return null;
         }
 
-        // 反序列化为字符串
-        String valueStr = new String(value);
-        // 使用 JSON 库进行反序列化
-        // 例如使用 Jackson: objectMapper.readValue(value.toString(), typeReference)
-        return objectMapper.readValue(valueStr, typeReference);
+        // 按数据头部识别格式后反序列化
+        return valueCodec.deserialize(value, typeReference);
     }
 
     /**
@@ -270,19 +339,14 @@ public class RedisUtils {
      */
     public <T> Optional<T> getOptional(String key, TypeReference<T> typeReference, int dbIndex) {
         try {
-            RedisTemplate<Object, Object> template = getTemplateForDB(dbIndex);
-            byte[] value = template.execute((RedisCallback<byte[]>) connection -> {
-                RedisStringCommands stringCommands = connection.stringCommands();
-                return stringCommands.get(getBytes(key));
-            });
+            byte[] value = getRaw(key, dbIndex);
 
             if (value == null) {
                 return Optional.empty();
             }
 
-            // 反序列化为字符串
-            String valueStr = new String(value);
-            T result = objectMapper.readValue(valueStr, typeReference);
+            // 按数据头部识别格式后反序列化
+            T result = valueCodec.deserialize(value, typeReference);
             return Optional.ofNullable(result);
         } catch (Exception e) {
             log.warn("Redis getOptional failed for key: {}", key, e);
@@ -312,20 +376,177 @@ public class RedisUtils {
      @return 值对象的Optional包装
      */
     public <T> Optional<T> getOptional(String key, Class<T> clazz, int dbIndex) {
-        RedisTemplate<Object, Object> template = getTemplateForDB(dbIndex);
-        return Optional.ofNullable(template.execute((RedisCallback<T>) connection -> {
-            // 使用新的 stringCommands API
-            RedisStringCommands stringCommands = connection.stringCommands();
-            byte[] value = stringCommands.get(getBytes(key));
+        byte[] value = getRaw(key, dbIndex);
+        if (value == null) {
+            return Optional.empty();
+        }
 
-            if (value == null) {
-                return null;
-            }
+        // 使用配置的序列化器
+        RedisSerializer<?> serializer = getTemplateForDB(dbIndex).getValueSerializer();
+        return Optional.ofNullable(clazz.cast(serializer.deserialize(value)));
+    }
 
-            // 使用配置的序列化器
-            RedisSerializer<?> serializer = template.getValueSerializer();
-            return clazz.cast(serializer.deserialize(value));
-        }));
+    /**
+     批量设置字符串值, 使用默认1天过期时间
+
+     @param values 键值对
+     @param <T>    值的类型
+     @return 全部设置成功返回true，否则返回false
+     */
+    public <T> boolean multiSet(Map<String, T> values) {
+        return multiSet(values, 1, TimeUnit.DAYS, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     批量设置字符串值并指定过期时间
+
+     @param values  键值对
+     @param timeout 过期时间
+     @param unit    时间单位
+     @param <T>     值的类型
+     @return 全部设置成功返回true，否则返回false
+     */
+    public <T> boolean multiSet(Map<String, T> values, long timeout, TimeUnit unit) {
+        return multiSet(values, timeout, unit, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     批量设置字符串值并指定过期时间和数据库, 所有SET命令通过管道一次性发送
+
+     @param values  键值对
+     @param timeout 过期时间, 小于等于0时不设置过期时间
+     @param unit    时间单位
+     @param dbIndex 数据库索引
+     @param <T>     值的类型
+     @return 全部设置成功返回true，否则返回false
+     */
+    public <T> boolean multiSet(Map<String, T> values, long timeout, TimeUnit unit, int dbIndex) {
+        if (values.isEmpty()) {
+            return true;
+        }
+
+        String firstKey = values.keySet()
+                                .iterator()
+                                .next();
+        List<Object> results;
+        try {
+            results = executeInDB("multiSet", firstKey, dbIndex, connection -> {
+                // 先完成序列化, 避免管道打开期间出现序列化异常
+                Map<byte[], byte[]> rawValues = new LinkedHashMap<>(values.size() * 2);
+                values.forEach((key, value) -> {
+                    byte[] rawValue = serializeValue(value);
+                    recordPayload("multiSet", key, rawValue);
+                    rawValues.put(getBytes(key), rawValue);
+                });
+
+                connection.openPipeline();
+                RedisStringCommands stringCommands = connection.stringCommands();
+                rawValues.forEach((rawKey, rawValue) -> {
+                    if (timeout > 0) {
+                        stringCommands.set(rawKey, rawValue, Expiration.from(timeout, unit),
+                                           RedisStringCommands.SetOption.UPSERT);
+                    } else {
+                        stringCommands.set(rawKey, rawValue);
+                    }
+                });
+                return connection.closePipeline();
+            });
+        } finally {
+            values.keySet()
+                  .forEach(key -> invalidateHotKey(key, dbIndex));
+        }
+
+        return results != null && results.stream()
+                                         .allMatch(result -> !Boolean.FALSE.equals(result));
+    }
+
+    /**
+     批量获取字符串值
+
+     @param keys  键集合
+     @param clazz 值类型的Class对象
+     @param <T>   值的类型
+     @return 键与值的映射, 顺序与keys一致, 不存在的键不包含在结果中
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz) {
+        return multiGet(keys, clazz, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     从指定数据库批量获取字符串值
+
+     @param keys    键集合
+     @param clazz   值类型的Class对象
+     @param dbIndex 数据库索引
+     @param <T>     值的类型
+     @return 键与值的映射, 顺序与keys一致, 不存在的键不包含在结果中
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz, int dbIndex) {
+        return multiGetInternal(keys, clazz, null, dbIndex);
+    }
+
+    /**
+     批量获取字符串值（使用 TypeReference 支持复杂泛型）
+
+     @param keys          键集合
+     @param typeReference 值类型的TypeReference对象
+     @param <T>           值的类型
+     @return 键与值的映射, 顺序与keys一致, 不存在的键不包含在结果中
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, TypeReference<T> typeReference) {
+        return multiGet(keys, typeReference, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     从指定数据库批量获取字符串值（使用 TypeReference 支持复杂泛型）
+
+     @param keys          键集合
+     @param typeReference 值类型的TypeReference对象
+     @param dbIndex       数据库索引
+     @param <T>           值的类型
+     @return 键与值的映射, 顺序与keys一致, 不存在的键不包含在结果中
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, TypeReference<T> typeReference, int dbIndex) {
+        return multiGetInternal(keys, null, typeReference, dbIndex);
+    }
+
+    /**
+     内部方法：从指定数据库批量获取字符串值, 使用单条MGET命令完成
+
+     @param keys          键集合
+     @param clazz         值类型的Class对象
+     @param typeReference 值类型的TypeReference对象
+     @param dbIndex       数据库索引
+     @param <T>           值的类型
+     @return 键与值的映射
+     */
+    private <T> Map<String, T> multiGetInternal(Collection<String> keys, Class<T> clazz,
+                                                TypeReference<T> typeReference, int dbIndex) {
+        if (keys.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<String> keyList = new ArrayList<>(keys);
+        byte[][] rawKeys = keyList.stream()
+                                  .map(this::getBytes)
+                                  .toArray(byte[][]::new);
+
+        List<byte[]> rawValues = executeInDB("multiGet", keyList.get(0), dbIndex,
+                                             connection -> connection.stringCommands()
+                                                                     .mGet(rawKeys));
+        Map<String, T> resultMap = new LinkedHashMap<>(keyList.size() * 2);
+        if (rawValues == null) {
+            return resultMap;
+        }
+
+        for (int i = 0; i < rawValues.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                recordPayload("multiGet", keyList.get(i), rawValue);
+                resultMap.put(keyList.get(i), deserializeValue(rawValue, clazz, typeReference));
+            }
+        }
+        return resultMap;
     }
 
     /**
@@ -346,8 +567,12 @@ public class RedisUtils {
      @return 删除成功返回true，否则返回false
      */
     public Boolean del(String key, int dbIndex) {
-        return executeInDB(dbIndex, connection -> Objects.equals(connection.keyCommands()
-                                                                           .del(getBytes(key)), 1L));
+        try {
+            return executeInDB("del", key, dbIndex, connection -> Objects.equals(connection.keyCommands()
+                                                                                           .del(getBytes(key)), 1L));
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
     }
 
     /**
@@ -368,8 +593,8 @@ public class RedisUtils {
      @return 存在返回true，否则返回false
      */
     public Boolean exists(String key, int dbIndex) {
-        return executeInDB(dbIndex, connection -> connection.keyCommands()
-                                                            .exists(getBytes(key)));
+        return executeInDB("exists", key, dbIndex, connection -> connection.keyCommands()
+                                                                           .exists(getBytes(key)));
     }
 
     /**
@@ -382,11 +607,15 @@ public class RedisUtils {
      @return 设置成功返回true，否则返回false
      */
     public Boolean expire(String key, long timeout, TimeUnit unit, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
-            long seconds = unit.toSeconds(timeout);
-            return connection.keyCommands()
-                             .expire(getBytes(key), seconds);
-        });
+        try {
+            return executeInDB("expire", key, dbIndex, connection -> {
+                long seconds = unit.toSeconds(timeout);
+                return connection.keyCommands()
+                                 .expire(getBytes(key), seconds);
+            });
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
     }
 
     /**
@@ -397,8 +626,8 @@ public class RedisUtils {
      @return 剩余生存时间(秒)，-1表示没有设置过期时间，-2表示key不存在
      */
     public Long ttl(String key, int dbIndex) {
-        return executeInDB(dbIndex, connection -> connection.keyCommands()
-                                                            .ttl(getBytes(key)));
+        return executeInDB("ttl", key, dbIndex, connection -> connection.keyCommands()
+                                                                        .ttl(getBytes(key)));
     }
 
     /**
@@ -423,17 +652,22 @@ public class RedisUtils {
      @return 添加成功的元素数量
      */
     public <T> Long setAdd(String key, Set<T> set, int dbIndex) {
-        Long result = executeInDB(dbIndex, connection -> {
-            byte[] rawKey = getBytes(key);
+        Long result;
+        try {
+            result = executeInDB("setAdd", key, dbIndex, connection -> {
+                byte[] rawKey = getBytes(key);
 
-            // 将Set中的每个元素序列化
-            byte[][] rawValues = set.stream()
-                                    .map(this::serializeValue)
-                                    .toArray(byte[][]::new);
+                // 将Set中的每个元素序列化
+                byte[][] rawValues = set.stream()
+                                        .map(this::serializeValue)
+                                        .toArray(byte[][]::new);
 
-            return connection.setCommands()
-                             .sAdd(rawKey, rawValues);
-        });
+                return connection.setCommands()
+                                 .sAdd(rawKey, rawValues);
+            });
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
         // 如果key没有设置过期时间，则设置默认过期时间
         setDefaultExpireIfNeeded(key, dbIndex);
         return result;
@@ -461,7 +695,7 @@ public class RedisUtils {
      @return Set中所有元素的集合
      */
     public <T> Set<T> getSetMembers(String key, Class<T> clazz, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("getSetMembers", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
 
             Set<byte[]> rawMembers = connection.setCommands()
@@ -470,16 +704,16 @@ public class RedisUtils {
                 return new HashSet<>();
             }
 
-            // 使用JSON反序列化替代Java原生反序列化
+            // 按数据头部识别格式反序列化, 替代Java原生反序列化
             try {
                 Set<T> members = new HashSet<>();
                 for (byte[] rawMember : rawMembers) {
-                    T member = objectMapper.readValue(rawMember, clazz);
+                    T member = valueCodec.deserialize(rawMember, clazz);
                     members.add(member);
                 }
                 return members;
             } catch (Exception e) {
-                throw new SerializationException("Failed to deserialize value using JSON", e);
+                throw new SerializationException("Failed to deserialize value", e);
             }
         });
     }
@@ -525,14 +759,20 @@ public class RedisUtils {
      @return 如果字段是新增的返回true，如果是更新已存在的字段返回false
      */
     public <T> Boolean hashSet(String key, String field, T value, int dbIndex) {
-        Boolean result = executeInDB(dbIndex, connection -> {
-            byte[] rawKey = getBytes(key);
-            byte[] rawField = getBytes(field);
-            byte[] rawValue = serializeValue(value);
-
-            return connection.hashCommands()
-                             .hSet(rawKey, rawField, rawValue);
-        });
+        Boolean result;
+        try {
+            result = executeInDB("hashSet", key, dbIndex, connection -> {
+                byte[] rawKey = getBytes(key);
+                byte[] rawField = getBytes(field);
+                byte[] rawValue = serializeValue(value);
+                recordPayload("hashSet", key, rawValue);
+
+                return connection.hashCommands()
+                                 .hSet(rawKey, rawField, rawValue);
+            });
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
         setDefaultExpireIfNeeded(key, dbIndex);
         return result;
     }
@@ -576,7 +816,7 @@ public class RedisUtils {
      */
     private <T> T hashGetInternal(String key, String field, Class<T> clazz, TypeReference<T> typeReference,
                                   int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashGet", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
             byte[] rawField = getBytes(field);
 
@@ -585,15 +825,16 @@ public class RedisUtils {
             if (rawValue == null) {
                 return null;
             }
+            recordPayload("hashGet", key, rawValue);
 
             try {
                 if (clazz != null) {
-                    return objectMapper.readValue(rawValue, clazz);
+                    return valueCodec.deserialize(rawValue, clazz);
                 } else {
-                    return objectMapper.readValue(rawValue, typeReference);
+                    return valueCodec.deserialize(rawValue, typeReference);
                 }
             } catch (Exception e) {
-                throw new SerializationException("Failed to deserialize value using JSON", e);
+                throw new SerializationException("Failed to deserialize value", e);
             }
         });
     }
@@ -635,15 +876,19 @@ public class RedisUtils {
      @return 被成功删除的字段数量
      */
     public Long hashDelete(String key, int dbIndex, String... fields) {
-        return executeInDB(dbIndex, connection -> {
-            byte[] rawKey = getBytes(key);
-            byte[][] rawFields = Arrays.stream(fields)
-                                       .map(this::getBytes)
-                                       .toArray(byte[][]::new);
-
-            return connection.hashCommands()
-                             .hDel(rawKey, rawFields);
-        });
+        try {
+            return executeInDB("hashDelete", key, dbIndex, connection -> {
+                byte[] rawKey = getBytes(key);
+                byte[][] rawFields = Arrays.stream(fields)
+                                           .map(this::getBytes)
+                                           .toArray(byte[][]::new);
+
+                return connection.hashCommands()
+                                 .hDel(rawKey, rawFields);
+            });
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
     }
 
     /**
@@ -655,7 +900,7 @@ public class RedisUtils {
      @return 存在返回true，否则返回false
      */
     public Boolean hashExists(String key, String field, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashExists", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
             byte[] rawField = getBytes(field);
 
@@ -726,7 +971,7 @@ public class RedisUtils {
      */
     private <T> Map<String, T> hashGetAllInternal(String key, Class<T> clazz, TypeReference<T> typeReference,
                                                   int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashGetAll", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
 
             Map<byte[], byte[]> rawMap = connection.hashCommands()
@@ -741,19 +986,166 @@ public class RedisUtils {
                     String field = new String(entry.getKey());
                     T value;
                     if (clazz != null) {
-                        value = objectMapper.readValue(entry.getValue(), clazz);
+                        value = valueCodec.deserialize(entry.getValue(), clazz);
                     } else {
-                        value = objectMapper.readValue(entry.getValue(), typeReference);
+                        value = valueCodec.deserialize(entry.getValue(), typeReference);
                     }
                     resultMap.put(field, value);
                 }
                 return resultMap;
             } catch (Exception e) {
-                throw new SerializationException("Failed to deserialize value using JSON", e);
+                throw new SerializationException("Failed to deserialize value", e);
             }
         });
     }
 
+    /**
+     批量设置Hash中的字段值
+
+     @param key    键
+     @param values 字段与值的映射
+     @param <T>    值的类型
+     */
+    public <T> void hashMultiSet(String key, Map<String, T> values) {
+        hashMultiSet(key, values, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     批量设置指定数据库Hash中的字段值, HMSET与默认过期时间检查通过管道一次性发送
+
+     @param key     键
+     @param values  字段与值的映射
+     @param dbIndex 数据库索引
+     @param <T>     值的类型
+     */
+    public <T> void hashMultiSet(String key, Map<String, T> values, int dbIndex) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        List<Object> results;
+        try {
+            results = executeInDB("hashMultiSet", key, dbIndex, connection -> {
+                byte[] rawKey = getBytes(key);
+                Map<byte[], byte[]> rawHash = new LinkedHashMap<>(values.size() * 2);
+                values.forEach((field, value) -> {
+                    byte[] rawValue = serializeValue(value);
+                    recordPayload("hashMultiSet", key, rawValue);
+                    rawHash.put(getBytes(field), rawValue);
+                });
+
+                connection.openPipeline();
+                connection.hashCommands()
+                          .hMSet(rawKey, rawHash);
+                connection.keyCommands()
+                          .ttl(rawKey);
+                return connection.closePipeline();
+            });
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
+
+        // 如果key没有设置过期时间，则设置默认过期时间
+        if (results != null && results.size() == 2 && Objects.equals(results.get(1), -1L)) {
+            expire(key, 1, TimeUnit.DAYS, dbIndex);
+        }
+    }
+
+    /**
+     批量获取Hash中指定字段的值
+
+     @param key    键
+     @param fields 字段名集合
+     @param clazz  值类型的Class对象
+     @param <T>    值的类型
+     @return 字段与值的映射, 顺序与fields一致, 不存在的字段不包含在结果中
+     */
+    public <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, Class<T> clazz) {
+        return hashMultiGet(key, fields, clazz, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     从指定数据库批量获取Hash中指定字段的值
+
+     @param key     键
+     @param fields  字段名集合
+     @param clazz   值类型的Class对象
+     @param dbIndex 数据库索引
+     @param <T>     值的类型
+     @return 字段与值的映射, 顺序与fields一致, 不存在的字段不包含在结果中
+     */
+    public <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, Class<T> clazz, int dbIndex) {
+        return hashMultiGetInternal(key, fields, clazz, null, dbIndex);
+    }
+
+    /**
+     批量获取Hash中指定字段的值（使用 TypeReference 支持复杂泛型）
+
+     @param key           键
+     @param fields        字段名集合
+     @param typeReference 值类型的TypeReference对象
+     @param <T>           值的类型
+     @return 字段与值的映射, 顺序与fields一致, 不存在的字段不包含在结果中
+     */
+    public <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, TypeReference<T> typeReference) {
+        return hashMultiGet(key, fields, typeReference, REDIS_DB_DEFAULT);
+    }
+
+    /**
+     从指定数据库批量获取Hash中指定字段的值（使用 TypeReference 支持复杂泛型）
+
+     @param key           键
+     @param fields        字段名集合
+     @param typeReference 值类型的TypeReference对象
+     @param dbIndex       数据库索引
+     @param <T>           值的类型
+     @return 字段与值的映射, 顺序与fields一致, 不存在的字段不包含在结果中
+     */
+    public <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, TypeReference<T> typeReference,
+                                           int dbIndex) {
+        return hashMultiGetInternal(key, fields, null, typeReference, dbIndex);
+    }
+
+    /**
+     内部方法：从指定数据库批量获取Hash中指定字段的值, 使用单条HMGET命令完成
+
+     @param key           键
+     @param fields        字段名集合
+     @param clazz         值类型的Class对象
+     @param typeReference 值类型的TypeReference对象
+     @param dbIndex       数据库索引
+     @param <T>           值的类型
+     @return 字段与值的映射
+     */
+    private <T> Map<String, T> hashMultiGetInternal(String key, Collection<String> fields, Class<T> clazz,
+                                                    TypeReference<T> typeReference, int dbIndex) {
+        if (fields.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<String> fieldList = new ArrayList<>(fields);
+        byte[][] rawFields = fieldList.stream()
+                                      .map(this::getBytes)
+                                      .toArray(byte[][]::new);
+
+        List<byte[]> rawValues = executeInDB("hashMultiGet", key, dbIndex,
+                                             connection -> connection.hashCommands()
+                                                                     .hMGet(getBytes(key), rawFields));
+        Map<String, T> resultMap = new LinkedHashMap<>(fieldList.size() * 2);
+        if (rawValues == null) {
+            return resultMap;
+        }
+
+        for (int i = 0; i < rawValues.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                recordPayload("hashMultiGet", key, rawValue);
+                resultMap.put(fieldList.get(i), deserializeValue(rawValue, clazz, typeReference));
+            }
+        }
+        return resultMap;
+    }
+
     /**
      获取Hash中的字段数量
 
@@ -772,7 +1164,7 @@ public class RedisUtils {
      @return 字段数量
      */
     public Long hashLen(String key, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashLen", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
 
             return connection.hashCommands()
@@ -798,7 +1190,7 @@ public class RedisUtils {
      @return 所有字段名的集合
      */
     public Set<String> hashKeys(String key, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashKeys", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
 
             Set<byte[]> rawKeys = connection.hashCommands()
@@ -837,7 +1229,7 @@ public class RedisUtils {
      @return 所有值的集合
      */
     public <T> List<T> hashVals(String key, Class<T> clazz, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
+        return executeInDB("hashVals", key, dbIndex, connection -> {
             byte[] rawKey = getBytes(key);
 
             List<byte[]> rawValues = connection.hashCommands()
@@ -849,12 +1241,12 @@ public class RedisUtils {
             List<T> values = new ArrayList<>();
             try {
                 for (byte[] rawValue : rawValues) {
-                    T value = objectMapper.readValue(rawValue, clazz);
+                    T value = valueCodec.deserialize(rawValue, clazz);
                     values.add(value);
                 }
                 return values;
             } catch (Exception e) {
-                throw new SerializationException("Failed to deserialize value using JSON", e);
+                throw new SerializationException("Failed to deserialize value", e);
             }
         });
     }
@@ -878,40 +1270,196 @@ public class RedisUtils {
      @throws SerializationException 序列化失败时抛出
      */
     private <T> byte[] serializeValue(T value) throws SerializationException {
-        try {
-            byte[] rawValue = objectMapper.writeValueAsBytes(value);
-            if (rawValue == null) {
-                throw new SerializationException("Failed to serialize value: serialized value is null");
-            }
-            return rawValue;
-        } catch (Exception e) {
-            throw new SerializationException("Failed to serialize value using JSON", e);
+        return valueCodec.serialize(value);
+    }
+
+    /**
+     将字节数组反序列化为值
+
+     @param rawValue      字节数组
+     @param clazz         值类型的Class对象, 为null时使用typeReference
+     @param typeReference 值类型的TypeReference对象
+     @param <T>           值的类型
+     @return 反序列化后的值
+     @throws SerializationException 反序列化失败时抛出
+     */
+    private <T> T deserializeValue(byte[] rawValue, Class<T> clazz, TypeReference<T> typeReference)
+            throws SerializationException {
+        if (clazz != null) {
+            return valueCodec.deserialize(rawValue, clazz);
+        } else {
+            return valueCodec.deserialize(rawValue, typeReference);
         }
     }
 
     /**
-     获取匹配指定模式的所有键
+     获取匹配指定模式的所有键, 集群模式下会扫描所有主节点
 
      @param pattern 键的模式，支持通配符(*)匹配
      @param dbIndex 数据库索引
      @return 匹配的键集合
      */
     public Set<String> keys(String pattern, int dbIndex) {
-        return executeInDB(dbIndex, connection -> {
-            Set<String> keys = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        try {
+            scan(pattern, 1000, dbIndex, keys::add, null);
+        } catch (Exception e) {
+            log.error("扫描Redis键时出错，pattern: {}", pattern, e);
+        }
+        return keys;
+    }
+
+    /**
+     扫描匹配指定模式的键, 逐个回调而不物化为集合
+
+     @param pattern  键的模式，支持通配符(*)匹配
+     @param count    每次SCAN的数量, 必须大于0
+     @param consumer 键的回调, 在调用线程中执行
+     @return 扫描到的键总数
+     */
+    public long scan(String pattern, int count, Consumer<String> consumer) {
+        return scan(pattern, count, REDIS_DB_DEFAULT, consumer, null);
+    }
+
+    /**
+     扫描指定数据库中匹配指定模式的键, 逐个回调而不物化为集合
+     <ul>
+     <li>单机/哨兵模式: 在一个连接上执行SCAN</li>
+     <li>集群模式: 并行扫描所有主节点, 通过有界队列汇总到调用线程, 集群模式仅支持0号数据库</li>
+     </ul>
+     consumer与progressListener均在调用线程中执行, 无需考虑线程安全
+
+     @param pattern          键的模式，支持通配符(*)匹配
+     @param count            每次SCAN的数量, 同时作为进度回调的间隔, 必须大于0
+     @param dbIndex          数据库索引
+     @param consumer         键的回调
+     @param progressListener 每个节点的扫描进度回调, 可为null
+     @return 扫描到的键总数
+     */
+    public long scan(String pattern, int count, int dbIndex, Consumer<String> consumer,
+                     Consumer<ScanProgress> progressListener) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("SCAN数量必须大于0, count: " + count);
+        }
+        ScanOptions scanOptions = ScanOptions.scanOptions()
+                                             .match(pattern)
+                                             .count(count)
+                                             .build();
+        Consumer<ScanProgress> listener = progressListener != null ? progressListener : progress -> {
+        };
+
+        if (redisConnectionFactory.isClusterAware()) {
+            if (dbIndex != REDIS_DB_DEFAULT) {
+                throw new IllegalArgumentException("Redis集群仅支持0号数据库, dbIndex: " + dbIndex);
+            }
+            return scanCluster(scanOptions, count, consumer, listener);
+        }
+
+        Long total = executeInDB("scan", pattern, dbIndex, connection -> {
+            long scanned = 0;
             try (Cursor<byte[]> cursor = connection.keyCommands()
-                                                   .scan(org.springframework.data.redis.core.ScanOptions.scanOptions()
-                                                                                                        .match(pattern)
-                                                                                                        .count(1000)
-                                                                                                        .build())) {
+                                                   .scan(scanOptions)) {
                 while (cursor.hasNext()) {
-                    keys.add(new String(cursor.next()));
+                    consumer.accept(new String(cursor.next()));
+                    if (++scanned % count == 0) {
+                        listener.accept(new ScanProgress(STANDALONE_NODE, scanned, false));
+                    }
                 }
-            } catch (Exception e) {
-                log.error("扫描Redis键时出错，pattern: {}", pattern, e);
             }
-            return keys;
+            listener.accept(new ScanProgress(STANDALONE_NODE, scanned, true));
+            return scanned;
         });
+        return total == null ? 0 : total;
+    }
+
+    /**
+     并行扫描集群所有主节点
+
+     @param scanOptions 扫描参数
+     @param count       每次SCAN的数量, 同时作为进度回调的间隔
+     @param consumer    键的回调
+     @param listener    进度回调
+     @return 扫描到的键总数
+     */
+    private long scanCluster(ScanOptions scanOptions, int count, Consumer<String> consumer,
+                             Consumer<ScanProgress> listener) {
+        List<RedisClusterNode> masters = new ArrayList<>();
+        try (RedisClusterConnection clusterConnection = redisConnectionFactory.getClusterConnection()) {
+            clusterConnection.clusterGetNodes()
+                             .forEach(node -> {
+                                 if (node.isMaster()) {
+                                     masters.add(node);
+                                 }
+                             });
+        }
+
+        // 队列中为扫描到的键(String)、节点进度(ScanProgress)或节点异常(Throwable)
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(count, 16) * 2);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (RedisClusterNode master : masters) {
+                executor.execute(() -> scanClusterNode(master, scanOptions, count, queue));
+            }
+
+            long total = 0;
+            int completed = 0;
+            while (completed < masters.size()) {
+                Object element = queue.take();
+                if (element instanceof String key) {
+                    consumer.accept(key);
+                    total++;
+                } else if (element instanceof ScanProgress progress) {
+                    listener.accept(progress);
+                    if (progress.completed()) {
+                        completed++;
+                    }
+                } else if (element instanceof Throwable e) {
+                    throw new IllegalStateException("扫描Redis集群节点失败", e);
+                }
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("扫描Redis集群被中断", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     扫描集群单个主节点, 结果写入队列
+
+     @param node        主节点
+     @param scanOptions 扫描参数
+     @param count       进度回调的间隔
+     @param queue       汇总队列
+     */
+    private void scanClusterNode(RedisClusterNode node, ScanOptions scanOptions, int count,
+                                 BlockingQueue<Object> queue) {
+        String nodeName = node.asString();
+        try (RedisClusterConnection clusterConnection = redisConnectionFactory.getClusterConnection();
+             Cursor<byte[]> cursor = clusterConnection.scan(node, scanOptions)) {
+            long scanned = 0;
+            while (cursor.hasNext()) {
+                queue.put(new String(cursor.next()));
+                if (++scanned % count == 0) {
+                    queue.put(new ScanProgress(nodeName, scanned, false));
+                }
+            }
+            queue.put(new ScanProgress(nodeName, scanned, true));
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        } catch (Exception e) {
+            // 必须送达, 否则调用线程会一直等待该节点完成; 调用线程退出时会中断本线程
+            try {
+                queue.put(e);
+            } catch (InterruptedException ie) {
+                Thread.currentThread()
+                      .interrupt();
+            }
+        }
     }
 
     /**
@@ -935,21 +1483,19 @@ public class RedisUtils {
     }
 
     /**
-     在指定数据库中原子递增操作
+     在指定数据库中原子递增操作, 如果key没有设置过期时间，则在同一脚本内设置默认过期时间
 
      @param key     键
      @param dbIndex 数据库索引
      @return 递增后的值
      */
     public Long incr(String key, int dbIndex) {
-        Long result = executeInDB(dbIndex, connection -> {
-            RedisStringCommands stringCommands = connection.stringCommands();
-            return stringCommands.incr(getBytes(key));
-        });
-
-        // 如果key没有设置过期时间，则设置默认过期时间
-        setDefaultExpireIfNeeded(key, dbIndex);
-        return result;
+        try {
+            return executeInDB("incr", key, dbIndex, connection -> evalIncrScript(connection, getBytes(key), 1L,
+                                                                                  TimeUnit.DAYS.toMillis(1), false));
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
     }
 
     /**
@@ -965,31 +1511,148 @@ public class RedisUtils {
     }
 
     /**
-     在指定数据库中带过期时间的原子递增操作
+     在指定数据库中带过期时间的原子递增操作, 递增与设置过期时间在同一脚本内完成
 
      @param key     键
-     @param timeout 过期时间
+     @param timeout 过期时间, 小于等于0时不设置过期时间
      @param unit    时间单位
      @param dbIndex 数据库索引
      @return 递增后的值
      */
     public Long incr(String key, long timeout, TimeUnit unit, int dbIndex) {
+        long ttlMillis = timeout > 0 ? unit.toMillis(timeout) : 0L;
+        try {
+            return executeInDB("incr", key, dbIndex, connection -> evalIncrScript(connection, getBytes(key), 1L,
+                                                                                  ttlMillis, true));
+        } finally {
+            invalidateHotKey(key, dbIndex);
+        }
+    }
 
-        return executeInDB(dbIndex, connection -> {
-            RedisStringCommands stringCommands = connection.stringCommands();
-            byte[] rawKey = getBytes(key);
+    /**
+     批量原子递增操作, 如果key没有设置过期时间，则设置默认过期时间
 
-            // 先递增
-            Long value = stringCommands.incr(rawKey);
+     @param deltas 键与递增值的映射
+     @return 键与递增后值的映射, 顺序与deltas一致
+     */
+    public Map<String, Long> incrBy(Map<String, Long> deltas) {
+        return incrBy(deltas, REDIS_DB_DEFAULT);
+    }
 
-            // 设置过期时间
-            if (timeout > 0) {
-                long seconds = unit.toSeconds(timeout);
-                connection.keyCommands()
-                          .expire(rawKey, seconds);
+    /**
+     在指定数据库中批量原子递增操作, 所有脚本调用通过管道一次性发送
+
+     @param deltas  键与递增值的映射
+     @param dbIndex 数据库索引
+     @return 键与递增后值的映射, 顺序与deltas一致
+     */
+    public Map<String, Long> incrBy(Map<String, Long> deltas, int dbIndex) {
+        if (deltas.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<String> keyList = new ArrayList<>(deltas.keySet());
+        byte[] defaultTtl = getBytes(String.valueOf(TimeUnit.DAYS.toMillis(1)));
+        List<Object> results;
+        try {
+            results = executeInDB("incrBy", keyList.get(0), dbIndex, connection -> {
+                RedisScriptingCommands scriptingCommands = connection.scriptingCommands();
+                try {
+                    return pipelineIncrScript(connection, keyList, deltas, defaultTtl);
+                } catch (RedisPipelineException e) {
+                    if (!isNoScriptError(e)) {
+                        throw e;
+                    }
+                    // 脚本缓存被清空(如Redis重启), 重新加载后再执行一次
+                    scriptingCommands.scriptLoad(getBytes(INCR_SCRIPT.getScriptAsString()));
+                    return pipelineIncrScript(connection, keyList, deltas, defaultTtl);
+                }
+            });
+        } finally {
+            keyList.forEach(key -> invalidateHotKey(key, dbIndex));
+        }
+
+        Map<String, Long> resultMap = new LinkedHashMap<>(keyList.size() * 2);
+        if (results == null) {
+            return resultMap;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            resultMap.put(keyList.get(i), (Long) results.get(i));
+        }
+        return resultMap;
+    }
+
+    /**
+     通过管道批量执行递增脚本
+
+     @param connection Redis连接
+     @param keyList    键列表
+     @param deltas     键与递增值的映射
+     @param defaultTtl 默认过期时间(毫秒)
+     @return 管道执行结果
+     */
+    private List<Object> pipelineIncrScript(RedisConnection connection, List<String> keyList,
+                                            Map<String, Long> deltas, byte[] defaultTtl) {
+        connection.openPipeline();
+        RedisScriptingCommands scriptingCommands = connection.scriptingCommands();
+        for (String key : keyList) {
+            scriptingCommands.evalSha(INCR_SCRIPT.getSha1(), ReturnType.INTEGER, 1, getBytes(key),
+                                      getBytes(String.valueOf(deltas.get(key))), defaultTtl, getBytes("0"));
+        }
+        return connection.closePipeline();
+    }
+
+    /**
+     执行递增脚本, 优先使用EVALSHA, 脚本未缓存时回退为EVAL
+
+     @param connection  Redis连接
+     @param rawKey      键
+     @param delta       递增值
+     @param ttlMillis   过期时间(毫秒), 小于等于0时不设置过期时间
+     @param forceExpire 是否每次都重置过期时间, 否则仅在key没有过期时间时设置
+     @return 递增后的值
+     */
+    private Long evalIncrScript(RedisConnection connection, byte[] rawKey, long delta, long ttlMillis,
+                                boolean forceExpire) {
+        byte[][] keysAndArgs = {rawKey, getBytes(String.valueOf(delta)), getBytes(String.valueOf(ttlMillis)),
+                getBytes(forceExpire ? "1" : "0")};
+        RedisScriptingCommands scriptingCommands = connection.scriptingCommands();
+        try {
+            return scriptingCommands.evalSha(INCR_SCRIPT.getSha1(), ReturnType.INTEGER, 1, keysAndArgs);
+        } catch (Exception e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            return scriptingCommands.eval(getBytes(INCR_SCRIPT.getScriptAsString()), ReturnType.INTEGER, 1,
+                                          keysAndArgs);
+        }
+    }
+
+    /**
+     判断异常是否由脚本未缓存(NOSCRIPT)引起
+
+     @param e 异常
+     @return 是则true, 反之, false
+     */
+    private boolean isNoScriptError(Throwable e) {
+        Throwable current = e;
+        while (current != null) {
+            String message = current.getMessage();
+            if (message != null && message.contains("NOSCRIPT")) {
+                return true;
             }
+            current = current.getCause();
+        }
+        return false;
+    }
 
-            return value;
-        });
+    /**
+     扫描进度
+
+     @param node      节点名称, 集群模式下为host:port
+     @param scanned   该节点已扫描的键数量
+     @param completed 该节点是否已扫描完成
+     */
+    public record ScanProgress(String node, long scanned, boolean completed) {
     }
 }
\ No newline at end of file
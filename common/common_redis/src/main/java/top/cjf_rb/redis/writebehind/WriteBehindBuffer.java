@@ -0,0 +1,452 @@
+package top.cjf_rb.redis.writebehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+import top.cjf_rb.redis.util.RedisUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ Redis写缓冲(write-behind), 用于浏览次数、最后活跃时间等高频且允许短暂延迟的写入
+ <ul>
+ <li>按key分段缓冲, 计数器使用LongAdder累加, 普通value及Hash字段后写覆盖先写</li>
+ <li>定时或待写入数量达到阈值时, 复用{@link RedisUtils}的批量接口通过管道一次性写入</li>
+ <li>写入失败时合并回缓冲, 期间的新值优先; 管道中只有部分命令失败时只退回失败的部分, 已生效的计数增量不会重复累加</li>
+ <li>Redis拒绝的写入(如key的类型不符)重试也不会成功, 记录日志后丢弃</li>
+ <li>连续失败时按刷新间隔指数退避, 最长30秒, 退避期间跳过定时及阈值触发的刷新</li>
+ <li>停机时先停止定时任务再刷新剩余数据, 进程异常退出时未刷新的数据会丢失</li>
+ <li>指标: redis.write.behind.pending, redis.write.behind.flushed 标签 type(counter|value|hash)/result(success|failure|dropped)</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WriteBehindBuffer {
+
+    private static final String FLUSHED_METRIC_NAME = "redis.write.behind.flushed";
+    private static final long MAX_BACKOFF_NANOS = Duration.ofSeconds(30)
+                                                          .toNanos();
+    private static final int MAX_BACKOFF_SHIFT = 5;
+
+    private final RedisUtils redisUtils;
+    private final AppRedisProperties appRedisProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     缓冲中待写入的key数量, Hash按字段计数
+     */
+    private final AtomicInteger pendingKeys = new AtomicInteger();
+    /**
+     阈值触发的刷新是否已提交, 避免重复提交
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private Stripe[] stripes;
+    private int mask;
+    private int maxPendingKeys;
+    private long valueTtlMillis;
+    private long flushIntervalNanos;
+    /**
+     连续失败的刷新次数, 只在flush的锁内读写
+     */
+    private int consecutiveFailures;
+    /**
+     退避结束的时间(System.nanoTime), consecutiveFailures大于0时有效
+     */
+    private long backoffUntilNanos;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        AppRedisProperties.WriteBehind properties = appRedisProperties.getWriteBehind();
+        int size = Integer.highestOneBit(Math.max(properties.getStripes() - 1, 1)) << 1;
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = size - 1;
+        maxPendingKeys = properties.getMaxPendingKeys();
+        valueTtlMillis = properties.getValueTtl()
+                                   .toMillis();
+
+        if (meterRegistry != null) {
+            Gauge.builder("redis.write.behind.pending", pendingKeys, AtomicInteger::get)
+                 .description("写缓冲中待写入的key数量")
+                 .register(meterRegistry);
+        }
+
+        long interval = properties.getFlushInterval()
+                                  .toMillis();
+        flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                     .name("redis-write-behind")
+                                                                     .daemon()
+                                                                     .factory());
+        scheduler.scheduleWithFixedDelay(() -> this.flushQuietly(false), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+        try {
+            // 等待进行中的刷新结束, 避免与最后一次刷新并发
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread()
+                  .interrupt();
+        }
+        // 停机前写入剩余的数据, 不等待退避结束
+        this.flushQuietly(true);
+    }
+
+    /**
+     计数器累加, 刷新时对Redis执行INCRBY, key没有过期时间时设置默认过期时间
+
+     @param key   键
+     @param delta 增量
+     */
+    public void increment(String key, long delta) {
+        this.addCounter(key, delta);
+        this.checkThreshold();
+    }
+
+    /**
+     设置value, 刷新时只写入最后一次设置的值, 过期时间为配置的valueTtl
+
+     @param key   键
+     @param value 值
+     */
+    public void set(String key, Object value) {
+        Objects.requireNonNull(value, "value");
+        Stripe stripe = this.stripe(key);
+        stripe.lock.readLock()
+                   .lock();
+        try {
+            if (stripe.batch.values.put(key, value) == null) {
+                pendingKeys.incrementAndGet();
+            }
+        } finally {
+            stripe.lock.readLock()
+                       .unlock();
+        }
+        this.checkThreshold();
+    }
+
+    /**
+     设置Hash字段, 刷新时每个字段只写入最后一次设置的值
+
+     @param key   键
+     @param field 字段
+     @param value 值
+     */
+    public void hashSet(String key, String field, Object value) {
+        Objects.requireNonNull(value, "value");
+        Stripe stripe = this.stripe(key);
+        stripe.lock.readLock()
+                   .lock();
+        try {
+            if (stripe.batch.hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                                   .put(field, value) == null) {
+                pendingKeys.incrementAndGet();
+            }
+        } finally {
+            stripe.lock.readLock()
+                       .unlock();
+        }
+        this.checkThreshold();
+    }
+
+    /**
+     立即将缓冲写入Redis, 不受退避限制, 写入失败的数据合并回缓冲等待下次刷新
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        Batch drained = new Batch();
+        for (Stripe stripe : stripes) {
+            Batch batch;
+            // 写锁只用于交换缓冲, 写入Redis时不阻塞调用方
+            stripe.lock.writeLock()
+                       .lock();
+            try {
+                batch = stripe.batch;
+                stripe.batch = new Batch();
+            } finally {
+                stripe.lock.writeLock()
+                           .unlock();
+            }
+            drained.counters.putAll(batch.counters);
+            drained.values.putAll(batch.values);
+            drained.hashes.putAll(batch.hashes);
+        }
+
+        int drainedKeys = drained.counters.size() + drained.values.size();
+        for (Map<String, Object> fields : drained.hashes.values()) {
+            drainedKeys += fields.size();
+        }
+        if (drainedKeys == 0) {
+            return;
+        }
+        pendingKeys.addAndGet(-drainedKeys);
+
+        boolean failed = this.flushCounters(drained.counters);
+        failed |= this.flushValues(drained.values);
+        failed |= this.flushHashes(drained.hashes);
+        if (!failed) {
+            consecutiveFailures = 0;
+            return;
+        }
+
+        consecutiveFailures++;
+        long backoff = Math.min(flushIntervalNanos << Math.min(consecutiveFailures, MAX_BACKOFF_SHIFT),
+                                MAX_BACKOFF_NANOS);
+        backoffUntilNanos = System.nanoTime() + backoff;
+    }
+
+    /**
+     @return 是否有退回缓冲等待重试的数据
+     */
+    private boolean flushCounters(Map<String, LongAdder> counters) {
+        if (counters.isEmpty()) {
+            return false;
+        }
+
+        // 顺序与管道中的命令一致, 用于对应部分失败的结果
+        Map<String, Long> deltas = new LinkedHashMap<>(counters.size() * 2);
+        counters.forEach((key, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        try {
+            redisUtils.incrBy(deltas);
+            this.count("counter", "success", deltas.size());
+            return false;
+        } catch (RedisPipelineException e) {
+            List<Object> results = e.getPipelineResult();
+            if (results.size() != deltas.size()) {
+                return this.restoreCounters(deltas, e);
+            }
+
+            // 成功的命令已经生效, 只退回失败的部分, 否则会重复累加
+            Map<String, Long> retry = new LinkedHashMap<>();
+            int dropped = 0;
+            int index = 0;
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                if (results.get(index++) instanceof Throwable error) {
+                    if (isRejected(error)) {
+                        log.error("Write-behind counter [{}] rejected by Redis, dropping delta {}", entry.getKey(),
+                                  entry.getValue(), error);
+                        dropped++;
+                    } else {
+                        retry.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            this.count("counter", "success", deltas.size() - retry.size() - dropped);
+            this.count("counter", "dropped", dropped);
+            return !retry.isEmpty() && this.restoreCounters(retry, e);
+        } catch (Exception e) {
+            return this.restoreCounters(deltas, e);
+        }
+    }
+
+    /**
+     增量累加回缓冲, 连接中断等情况下Redis可能已执行了部分命令, 此时会重复累加
+     */
+    private boolean restoreCounters(Map<String, Long> deltas, Exception e) {
+        log.warn("Write-behind flush of {} counters failed, will retry", deltas.size(), e);
+        this.count("counter", "failure", deltas.size());
+        deltas.forEach(this::addCounter);
+        return true;
+    }
+
+    private boolean flushValues(Map<String, Object> values) {
+        if (values.isEmpty()) {
+            return false;
+        }
+
+        try {
+            redisUtils.multiSet(values, valueTtlMillis, TimeUnit.MILLISECONDS);
+            this.count("value", "success", values.size());
+            return false;
+        } catch (Exception e) {
+            // 重复SET是幂等的, 全部退回
+            log.warn("Write-behind flush of {} values failed, will retry", values.size(), e);
+            this.count("value", "failure", values.size());
+            values.forEach((key, value) -> this.restore(key, null, value));
+            return true;
+        }
+    }
+
+    private boolean flushHashes(Map<String, ConcurrentHashMap<String, Object>> hashes) {
+        boolean failed = false;
+        for (Map.Entry<String, ConcurrentHashMap<String, Object>> entry : hashes.entrySet()) {
+            String key = entry.getKey();
+            Map<String, Object> fields = entry.getValue();
+            try {
+                redisUtils.hashMultiSet(key, fields);
+                this.count("hash", "success", fields.size());
+            } catch (Exception e) {
+                if (isRejected(e)) {
+                    log.error("Write-behind hash [{}] rejected by Redis, dropping {} fields", key, fields.size(), e);
+                    this.count("hash", "dropped", fields.size());
+                    continue;
+                }
+                log.warn("Write-behind flush of hash [{}] failed, will retry", key, e);
+                this.count("hash", "failure", fields.size());
+                fields.forEach((field, value) -> this.restore(key, field, value));
+                failed = true;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     计数器累加, 不检查阈值, 供调用方写入及失败退回使用
+     */
+    private void addCounter(String key, long delta) {
+        Stripe stripe = this.stripe(key);
+        stripe.lock.readLock()
+                   .lock();
+        try {
+            stripe.batch.counters.computeIfAbsent(key, k -> {
+                                     pendingKeys.incrementAndGet();
+                                     return new LongAdder();
+                                 })
+                                 .add(delta);
+        } finally {
+            stripe.lock.readLock()
+                       .unlock();
+        }
+    }
+
+    /**
+     写入失败的值合并回缓冲, 刷新期间已有新值时保留新值
+
+     @param field Hash字段, 普通value为null
+     */
+    private void restore(String key, String field, Object value) {
+        Stripe stripe = this.stripe(key);
+        stripe.lock.readLock()
+                   .lock();
+        try {
+            Map<String, Object> target = field == null ? stripe.batch.values :
+                    stripe.batch.hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+            if (target.putIfAbsent(field == null ? key : field, value) == null) {
+                pendingKeys.incrementAndGet();
+            }
+        } finally {
+            stripe.lock.readLock()
+                       .unlock();
+        }
+    }
+
+    /**
+     @param ignoreBackoff 是否忽略退避, 停机前的最后一次刷新忽略
+     */
+    private synchronized void flushQuietly(boolean ignoreBackoff) {
+        if (!ignoreBackoff && consecutiveFailures > 0 && System.nanoTime() - backoffUntilNanos < 0) {
+            flushRequested.set(false);
+            return;
+        }
+
+        try {
+            this.flush();
+        } catch (Exception e) {
+            log.warn("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     待写入数量达到阈值时提交一次异步刷新
+     */
+    private void checkThreshold() {
+        if (pendingKeys.get() < maxPendingKeys || !flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(() -> this.flushQuietly(false));
+        } catch (RejectedExecutionException e) {
+            // 已停机, 由destroy中的最后一次刷新写入
+            flushRequested.set(false);
+        }
+    }
+
+    private Stripe stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     Redis拒绝执行的命令, 如key的类型不符、值不是整数, 重试也不会成功
+     */
+    private static boolean isRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && (message.startsWith("WRONGTYPE") || message.startsWith("ERR "))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(String type, String result, int keys) {
+        if (meterRegistry == null || keys == 0) {
+            return;
+        }
+
+        Counter.builder(FLUSHED_METRIC_NAME)
+               .description("写缓冲刷新的key数量")
+               .tag("type", type)
+               .tag("result", result)
+               .register(meterRegistry)
+               .increment(keys);
+    }
+
+    /**
+     分段, 调用方写入时持有读锁(可并发), 刷新交换缓冲时持有写锁
+     */
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Batch batch = new Batch();
+    }
+
+    /**
+     一批待写入的数据
+     */
+    private static final class Batch {
+        private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ConcurrentHashMap<String, Object>> hashes = new ConcurrentHashMap<>();
+    }
+
+}
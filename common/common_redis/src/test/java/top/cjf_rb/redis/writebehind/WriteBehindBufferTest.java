@@ -0,0 +1,149 @@
+package top.cjf_rb.redis.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+import top.cjf_rb.redis.util.RedisUtils;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ 写缓冲刷新失败后的退回与退避
+
+ @author cjf
+ @since 1.0 */
+class WriteBehindBufferTest {
+
+    private RedisUtils redisUtils;
+    private AppRedisProperties properties;
+    private WriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        redisUtils = mock(RedisUtils.class);
+        properties = new AppRedisProperties();
+        // 不依赖定时刷新
+        properties.getWriteBehind()
+                  .setFlushInterval(Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.destroy();
+        }
+    }
+
+    @Test
+    void partialPipelineFailureRestoresOnlyFailedCounters() {
+        this.start();
+        when(redisUtils.incrBy(anyMap())).thenAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(0);
+            List<Object> results = new ArrayList<>();
+            for (String key : deltas.keySet()) {
+                results.add(switch (key) {
+                    case "wrong-type" -> new InvalidDataAccessApiUsageException(
+                            "WRONGTYPE Operation against a key holding the wrong kind of value");
+                    case "timeout" -> new QueryTimeoutException("Command timed out");
+                    default -> deltas.get(key);
+                });
+            }
+            throw new RedisPipelineException(new QueryTimeoutException("Command timed out"), results);
+        }).thenReturn(Map.of());
+
+        buffer.increment("ok", 1);
+        buffer.increment("wrong-type", 2);
+        buffer.increment("timeout", 5);
+        buffer.flush();
+        buffer.increment("timeout", 1);
+        buffer.flush();
+
+        Map<String, Long> retried = this.capturedDeltas(2)
+                                        .get(1);
+        // 已生效的增量不重复累加, 被拒绝的增量丢弃, 超时的增量与新增量合并
+        assertThat(retried).containsExactly(Map.entry("timeout", 6L));
+    }
+
+    @Test
+    void connectionFailureRestoresAllCounters() {
+        this.start();
+        when(redisUtils.incrBy(anyMap())).thenThrow(new RedisConnectionFailureException("Connection refused"))
+                                         .thenReturn(Map.of());
+
+        buffer.increment("a", 1);
+        buffer.increment("b", 2);
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(this.capturedDeltas(2)
+                       .get(1)).containsOnly(Map.entry("a", 1L), Map.entry("b", 2L));
+    }
+
+    @Test
+    void rejectedHashIsDroppedAndTransientFailureIsRestored() {
+        this.start();
+        doThrow(new RedisPipelineException(new InvalidDataAccessApiUsageException(
+                "WRONGTYPE Operation against a key holding the wrong kind of value"), List.of()))
+                .when(redisUtils)
+                .hashMultiSet(eq("wrong-type"), anyMap());
+        doThrow(new RedisConnectionFailureException("Connection refused")).doNothing()
+                                                                           .when(redisUtils)
+                                                                           .hashMultiSet(eq("retry"), anyMap());
+
+        buffer.hashSet("wrong-type", "field", 1);
+        buffer.hashSet("retry", "field", 2);
+        buffer.flush();
+        buffer.flush();
+
+        verify(redisUtils, times(1)).hashMultiSet(eq("wrong-type"), anyMap());
+        verify(redisUtils, times(2)).hashMultiSet(eq("retry"), anyMap());
+    }
+
+    @Test
+    void failedFlushBacksOffInsteadOfRetryingImmediately() {
+        properties.getWriteBehind()
+                  .setMaxPendingKeys(1);
+        this.start();
+        when(redisUtils.incrBy(anyMap())).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        // 达到阈值, 触发一次异步刷新
+        buffer.increment("a", 1);
+        verify(redisUtils, timeout(1000).times(1)).incrBy(anyMap());
+
+        // 退回的增量及新的写入都不会在退避期间再次触发刷新
+        buffer.increment("b", 1);
+        verify(redisUtils, after(300).times(1)).incrBy(anyMap());
+
+        // 主动刷新不受退避限制
+        buffer.flush();
+        verify(redisUtils, times(2)).incrBy(anyMap());
+    }
+
+    private void start() {
+        buffer = new WriteBehindBuffer(redisUtils, properties);
+        buffer.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Long>> capturedDeltas(int times) {
+        ArgumentCaptor<Map<String, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(redisUtils, times(times)).incrBy(captor.capture());
+        // 捕获的是同一个可变Map时, 复制后再断言
+        return captor.getAllValues()
+                     .stream()
+                     .map(deltas -> (Map<String, Long>) new LinkedHashMap<>(deltas))
+                     .toList();
+    }
+
+}
@@ -0,0 +1,88 @@
+package top.cjf_rb.redis.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 批量读取的访问方式: 逐个GET、管道GET、MGET
+ <p>
+ 使用{@link InMemoryRedisConnectionFactory}模拟往返延迟, 结果反映往返次数与序列化的开销, 不含Redis服务端耗时
+
+ @author cjf
+ @since 1.0 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessPatternBenchmark {
+
+    /**
+     模拟的往返延迟(微秒), 0为纯CPU开销
+     */
+    @Param({"0", "50"})
+    public long roundTripMicros;
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private List<String> keys;
+    private byte[][] rawKeys;
+
+    @Setup
+    public void setup() {
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(new InMemoryRedisConnectionFactory(
+                TimeUnit.MICROSECONDS.toNanos(roundTripMicros)));
+        redisTemplate.setKeySerializer(RedisSerializer.string());
+        redisTemplate.setValueSerializer(BenchmarkFixtures.serializer(BenchmarkFixtures.JSON));
+        redisTemplate.afterPropertiesSet();
+
+        keys = new ArrayList<>(batchSize);
+        rawKeys = new byte[batchSize][];
+        Object value = BenchmarkFixtures.payload(BenchmarkFixtures.SMALL);
+        for (int i = 0; i < batchSize; i++) {
+            String key = "benchmark:user:" + i;
+            keys.add(key);
+            rawKeys[i] = key.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.opsForValue()
+                         .set(key, value);
+        }
+    }
+
+    @Benchmark
+    public void sequentialGet(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(redisTemplate.opsForValue()
+                                           .get(key));
+        }
+    }
+
+    @Benchmark
+    public List<Object> pipelinedGet() {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] rawKey : rawKeys) {
+                connection.stringCommands()
+                          .get(rawKey);
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public List<Object> multiGet() {
+        return redisTemplate.opsForValue()
+                            .multiGet(keys);
+    }
+
+}
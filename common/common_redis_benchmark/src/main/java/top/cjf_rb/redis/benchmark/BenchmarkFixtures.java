@@ -0,0 +1,114 @@
+package top.cjf_rb.redis.benchmark;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import top.cjf_rb.core.context.AuthenticatedUser;
+import top.cjf_rb.redis.config.AppRedisConfig;
+import top.cjf_rb.redis.pojo.prop.AppRedisProperties;
+import top.cjf_rb.redis.serializer.JsonRedisValueFormat;
+import top.cjf_rb.redis.serializer.RedisValueCodec;
+import top.cjf_rb.redis.serializer.RedisValueCodecFactory;
+import top.cjf_rb.redis.serializer.SmileRedisValueFormat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ 基准测试共用的序列化器及测试数据
+
+ @author cjf
+ @since 1.0 */
+final class BenchmarkFixtures {
+
+    /**
+     GenericJackson2JsonRedisSerializer, 默认类型信息写入全限定类名
+     */
+    static final String GENERIC_JSON = "generic-json";
+    /**
+     RedisValueCodec JSON格式, 即RedisUtils.serializeValue的默认实现
+     */
+    static final String JSON = "json";
+    static final String SMILE = "smile";
+    static final String JSON_ZSTD = "json-zstd";
+    static final String SMILE_ZSTD = "smile-zstd";
+
+    static final String SMALL = "small";
+    static final String LARGE = "large";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     与AppRedisConfig一致的方式创建序列化器
+
+     @param name 序列化器名称
+     @return 序列化器
+     */
+    @SuppressWarnings("unchecked")
+    static RedisSerializer<Object> serializer(String name) {
+        if (GENERIC_JSON.equals(name)) {
+            return (RedisSerializer<Object>) (RedisSerializer<?>) new GenericJackson2JsonRedisSerializer();
+        }
+
+        AppRedisProperties properties = new AppRedisProperties();
+        properties.getSerializer()
+                  .setFormat(name.startsWith(SMILE) ? SmileRedisValueFormat.NAME : JsonRedisValueFormat.NAME);
+        properties.getSerializer()
+                  .getTypeIds()
+                  .put("user", AuthenticatedUser.class);
+        if (name.endsWith("-zstd")) {
+            properties.getCompression()
+                      .setEnabled(true);
+            properties.getCompression()
+                      .setThreshold(DataSize.ofBytes(512));
+        }
+
+        RedisValueCodecFactory factory = new RedisValueCodecFactory(List.of(new JsonRedisValueFormat(),
+                                                                            new SmileRedisValueFormat()), properties);
+        RedisValueCodec codec = new AppRedisConfig(new CacheProperties(), properties).redisValueSerializer(
+                Jackson2ObjectMapperBuilder.json(), factory);
+        return (RedisSerializer<Object>) (RedisSerializer<?>) codec;
+    }
+
+    /**
+     测试数据
+
+     @param name small: 单个登录用户(约0.5KB); large: 200个登录用户的列表(JSON约90KB)
+     @return 测试数据
+     */
+    static Object payload(String name) {
+        if (SMALL.equals(name)) {
+            return user(1);
+        }
+
+        List<AuthenticatedUser> users = new ArrayList<>(200);
+        for (int i = 0; i < 200; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    /**
+     权限(SimpleGrantedAuthority)需要Spring Security的Jackson模块才能反序列化, 测试数据不包含
+     */
+    private static AuthenticatedUser user(long userid) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("orgId", 1000L + userid);
+        details.put("orgName", "机构" + userid);
+        details.put("roles", List.of("admin", "auditor"));
+
+        return new AuthenticatedUser().setUserid(userid)
+                                      .setName("user-" + userid)
+                                      .setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1aQz5jW9N1q3cB2a0y9QGxW")
+                                      .setPhoneNo("1380000" + String.format("%04d", userid))
+                                      .setAuthorities(new HashSet<>())
+                                      .setDetails(details);
+    }
+
+}
@@ -0,0 +1,150 @@
+package top.cjf_rb.redis.benchmark;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.lang.NonNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ 基于内存的Redis连接, 代替真实的Redis服务
+ <ul>
+ <li>仅支持基准测试用到的字符串命令: GET/SET/MGET/PTTL/DEL/EXISTS, 以及管道</li>
+ <li>每次往返(非管道的单条命令, 或一次closePipeline)忙等待roundTripNanos, 模拟网络延迟</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+class InMemoryRedisConnectionFactory implements RedisConnectionFactory {
+
+    private final Map<ByteBuffer, byte[]> store = new ConcurrentHashMap<>();
+    private final long roundTripNanos;
+
+    /**
+     @param roundTripNanos 模拟的往返延迟(纳秒)
+     */
+    InMemoryRedisConnectionFactory(long roundTripNanos) {
+        this.roundTripNanos = roundTripNanos;
+    }
+
+    @Override
+    @NonNull
+    public RedisConnection getConnection() {
+        return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                        new Class<?>[]{RedisConnection.class},
+                                                        new ConnectionHandler());
+    }
+
+    @Override
+    @NonNull
+    public RedisClusterConnection getClusterConnection() {
+        throw new UnsupportedOperationException("Cluster is not supported");
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return true;
+    }
+
+    @Override
+    @NonNull
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new UnsupportedOperationException("Sentinel is not supported");
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(@NonNull RuntimeException ex) {
+        return null;
+    }
+
+    private void roundTrip() {
+        if (roundTripNanos <= 0) {
+            return;
+        }
+
+        // 忙等待, parkNanos的精度不足以模拟微秒级的延迟
+        long deadline = System.nanoTime() + roundTripNanos;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     单个连接, 按方法名分派, 管道模式下结果在closePipeline时一起返回
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private List<Object> pipelineResults;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "stringCommands", "keyCommands" -> proxy;
+                case "openPipeline" -> {
+                    pipelineResults = new ArrayList<>();
+                    yield null;
+                }
+                case "closePipeline" -> {
+                    List<Object> results = pipelineResults == null ? List.of() : pipelineResults;
+                    pipelineResults = null;
+                    roundTrip();
+                    yield results;
+                }
+                case "isPipelined" -> pipelineResults != null;
+                case "isQueueing", "isClosed" -> false;
+                case "close" -> null;
+                case "getNativeConnection" -> store;
+                case "get" -> this.reply(store.get(ByteBuffer.wrap((byte[]) args[0])), method);
+                case "set" -> {
+                    store.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) args[1]);
+                    yield this.reply(Boolean.TRUE, method);
+                }
+                case "mGet" -> {
+                    List<byte[]> values = new ArrayList<>();
+                    for (byte[] key : (byte[][]) args[0]) {
+                        values.add(store.get(ByteBuffer.wrap(key)));
+                    }
+                    yield this.reply(values, method);
+                }
+                case "pTtl", "ttl" -> this.reply(store.containsKey(ByteBuffer.wrap((byte[]) args[0])) ? -1L : -2L,
+                                                 method);
+                case "exists" -> this.reply(store.containsKey(ByteBuffer.wrap((byte[]) args[0])), method);
+                case "del" -> {
+                    long deleted = 0;
+                    for (byte[] key : (byte[][]) args[0]) {
+                        deleted += store.remove(ByteBuffer.wrap(key)) != null ? 1 : 0;
+                    }
+                    yield this.reply(deleted, method);
+                }
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "InMemoryRedisConnection";
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        }
+
+        /**
+         管道模式下记录结果并返回null, 否则模拟一次往返后直接返回
+         */
+        private Object reply(Object result, Method method) {
+            if (pipelineResults != null) {
+                pipelineResults.add(result);
+                return null;
+            }
+
+            roundTrip();
+            return method.getReturnType() == boolean.class ? Boolean.TRUE.equals(result) : result;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package top.cjf_rb.redis.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.cjf_rb.core.constant.ClientAgentEnum;
+import top.cjf_rb.core.constant.SeparatorEnum;
+import top.cjf_rb.redis.metrics.RedisMetrics;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 存取器中key的拼接方式
+
+ @author cjf
+ @since 1.0 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBuildingBenchmark {
+
+    private static final String KEY_PREFIX = "beego:authenticatedUser:";
+
+    @Param({"12345", "1790000000000000000"})
+    public long userid;
+
+    private Serializable identifier;
+    private ClientAgentEnum type;
+    private String key;
+
+    @Setup
+    public void setup() {
+        identifier = userid;
+        type = ClientAgentEnum.PLATFORM;
+        key = KEY_PREFIX + type + ":" + identifier;
+    }
+
+    /**
+     RedisPrefixAccessor: keyPrefix + identifier
+     */
+    @Benchmark
+    public String prefixConcat() {
+        return KEY_PREFIX + identifier;
+    }
+
+    /**
+     AuthUserAccessor: keyPrefix + type + ":" + identifier
+     */
+    @Benchmark
+    public String typedConcat() {
+        return KEY_PREFIX + type + SeparatorEnum.COLON.getSeparator() + identifier;
+    }
+
+    @Benchmark
+    public String stringBuilder() {
+        return new StringBuilder(KEY_PREFIX.length() + 32).append(KEY_PREFIX)
+                                                           .append(type)
+                                                           .append(':')
+                                                           .append(identifier)
+                                                           .toString();
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format("%s%s:%s", KEY_PREFIX, type, identifier);
+    }
+
+    /**
+     拼接后编码为写入Redis的字节
+     */
+    @Benchmark
+    public byte[] concatToBytes() {
+        return (KEY_PREFIX + identifier).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     指标标签的前缀提取
+     */
+    @Benchmark
+    public String metricPrefix() {
+        return RedisMetrics.prefixOf(key);
+    }
+
+}
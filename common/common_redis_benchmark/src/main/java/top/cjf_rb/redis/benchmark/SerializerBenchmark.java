@@ -0,0 +1,54 @@
+package top.cjf_rb.redis.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ value序列化的CPU开销
+ <ul>
+ <li>generic-json: GenericJackson2JsonRedisSerializer, 默认类型信息为全限定类名</li>
+ <li>json/smile: RedisValueCodec(RedisUtils.serializeValue), 已注册类型写入短标识</li>
+ <li>*-zstd: 超过512字节时zstd压缩</li>
+ </ul>
+
+ @author cjf
+ @since 1.0 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({BenchmarkFixtures.GENERIC_JSON, BenchmarkFixtures.JSON, BenchmarkFixtures.SMILE,
+            BenchmarkFixtures.JSON_ZSTD, BenchmarkFixtures.SMILE_ZSTD})
+    public String serializer;
+
+    @Param({BenchmarkFixtures.SMALL, BenchmarkFixtures.LARGE})
+    public String payload;
+
+    private RedisSerializer<Object> redisSerializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        redisSerializer = BenchmarkFixtures.serializer(serializer);
+        value = BenchmarkFixtures.payload(payload);
+        bytes = redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(bytes);
+    }
+
+}
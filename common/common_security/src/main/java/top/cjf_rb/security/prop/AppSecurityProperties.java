@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * 日志记录
  */
@@ -18,4 +20,56 @@ public class AppSecurityProperties {
 
     private String[] permitActuatorUris = {"/actuator/**"};
 
+    /**
+     * 认证用户本地缓存
+     */
+    private AuthUserCache authUserCache = new AuthUserCache();
+
+    /**
+     * 登录会话有效期
+     */
+    private Session session = new Session();
+
+    /**
+     * 认证用户本地缓存, 基于Redis服务端辅助的客户端缓存(CLIENT TRACKING)失效
+     */
+    @Data
+    public static class AuthUserCache {
+        /**
+         * 是否开启, 开启失败(如非RESP3协议或集群模式)时回退为直接读取Redis
+         */
+        private boolean trackingEnabled = false;
+        /**
+         * 本地缓存最大条数
+         */
+        private long maximumSize = 10000;
+    }
+
+    /**
+     * 登录会话有效期, 滑动续期时访问会延长有效期, 续期请求在本地合并后批量写入Redis
+     */
+    @Data
+    public static class Session {
+        /**
+         * 会话有效期
+         */
+        private Duration timeout = Duration.ofHours(12L);
+        /**
+         * 是否滑动续期
+         */
+        private boolean slidingEnabled = false;
+        /**
+         * 批量续期的间隔, 同一会话在一个间隔内多次访问只续期一次
+         */
+        private Duration flushInterval = Duration.ofSeconds(30L);
+        /**
+         * 等待续期的会话数上限, 超过后新的访问暂不续期, 等待下一次访问
+         */
+        private int maxPending = 100000;
+        /**
+         * 登出时发布令牌吊销通知的Redis频道, 网关收到后清除该用户已校验令牌的缓存, 为空时不发布
+         */
+        private String revocationChannel = "app:gateway:token-revoked";
+    }
+
 }
@@ -3,37 +3,132 @@ package top.cjf_rb.security.support;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import top.cjf_rb.core.constant.ClientAgentEnum;
+import top.cjf_rb.redis.metrics.RedisMetrics;
 import top.cjf_rb.security.pojo.bo.AuthenticatedUserBo;
+import top.cjf_rb.security.prop.AppSecurityProperties;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <pre>
  *     <h3>登陆令牌的缓存操作工具</h3>
  *     <li>key的格式：${keyPrefix}:${端口}:${userId}</li>
  *     <li>key的示例：app-authenticatedUser:oem:12345</li>
+ *     <li>开启 app.security.auth-user-cache.tracking-enabled 后, 解码后的用户信息缓存在本地,
+ *     由Redis的CLIENT TRACKING推送失效, 开启失败时回退为直接读取Redis</li>
+ *     <li>开启 app.redis.metrics.enabled 后, 按${keyPrefix}:${端口}记录耗时及数据大小</li>
+ *     <li>开启 app.security.session.sliding-enabled 后, 读取命中的会话先记录在本地,
+ *     每隔 flush-interval 以一次管道批量PEXPIRE续期, 不会给每个请求增加一次Redis写入</li>
+ *     <li>距上次写入或续期不足会话有效期的1/4时不再续期, PEXPIRE同样会触发CLIENT TRACKING失效,
+ *     频繁续期会使活跃用户的本地缓存不断被清空</li>
  * </pre>
  */
+@Slf4j
 @Component
 public class AuthUserAccessor {
 
     private static final String keyPrefix = "beego:authenticatedUser:";
-    private static final Duration expired = Duration.ofHours(12L);
     @Resource
     private ObjectMapper objectMapper;
     @Resource
     @Lazy
     private RedisTemplate<Serializable, String> redisTemplate;
+    @Resource
+    @Lazy
+    private LettuceConnectionFactory redisConnectionFactory;
+    @Resource
+    private AppSecurityProperties appSecurityProperties;
+    @Resource
+    private RedisMetrics redisMetrics;
+
+    /**
+     * 本地缓存, 未开启或开启失败时为null
+     */
+    private AuthUserTrackingCache trackingCache;
+    /**
+     * 会话有效期
+     */
+    private Duration expired;
+    /**
+     * 等待续期的key, 未开启滑动续期时为null
+     */
+    private Set<String> pendingTouches;
+    /**
+     * 本节点最近写入或续期过的key, 过期前不再续期, 未开启滑动续期时为null
+     */
+    private Cache<String, Boolean> recentlyRefreshed;
+    private ScheduledExecutorService touchScheduler;
+
+    @PostConstruct
+    private void init() {
+        AppSecurityProperties.Session session = appSecurityProperties.getSession();
+        this.expired = session.getTimeout();
+        if (session.isSlidingEnabled()) {
+            this.pendingTouches = ConcurrentHashMap.newKeySet();
+            this.recentlyRefreshed = Caffeine.newBuilder()
+                                             .expireAfterWrite(expired.dividedBy(4))
+                                             .maximumSize(session.getMaxPending())
+                                             .build();
+            long interval = session.getFlushInterval()
+                                   .toMillis();
+            this.touchScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                                   .name("auth-user-touch")
+                                                                                   .daemon()
+                                                                                   .factory());
+            touchScheduler.scheduleWithFixedDelay(this::flushTouches, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        AppSecurityProperties.AuthUserCache authUserCache = appSecurityProperties.getAuthUserCache();
+        if (!authUserCache.isTrackingEnabled()) {
+            return;
+        }
+
+        try {
+            this.trackingCache = AuthUserTrackingCache.open(redisConnectionFactory.getRequiredNativeClient(),
+                                                            authUserCache.getMaximumSize())
+                                                      .orElse(null);
+        } catch (Exception e) {
+            // 连接工厂未就绪等情况, 回退为直接读取Redis
+            this.trackingCache = null;
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (touchScheduler != null) {
+            touchScheduler.shutdownNow();
+            // 停机前续期剩余的会话
+            this.flushTouches();
+        }
+        if (trackingCache != null) {
+            trackingCache.close();
+        }
+    }
 
     /**
      * <pre>
@@ -49,6 +144,13 @@ public class AuthUserAccessor {
         return keyPrefix + type + ":" + identifier;
     }
 
+    /**
+     * 指标使用的前缀标签, 不包含用户id
+     */
+    private String metricPrefix(ClientAgentEnum type) {
+        return keyPrefix + type;
+    }
+
     public void set(@NonNull ClientAgentEnum type, @NonNull Serializable identifier, AuthenticatedUserBo content) {
 
         String key = generateKey(type, identifier);
@@ -56,38 +158,171 @@ public class AuthUserAccessor {
         ValueOperations<Serializable, String> forValue = redisTemplate.opsForValue();
         try {
             String asString = objectMapper.writeValueAsString(content);
-            forValue.set(key, asString, expired);
+            if (redisMetrics.isEnabled()) {
+                redisMetrics.payload("set", metricPrefix(type), asString.getBytes(StandardCharsets.UTF_8).length);
+            }
+            redisMetrics.time("set", metricPrefix(type), () -> {
+                forValue.set(key, asString, expired);
+                return null;
+            });
         } catch (JsonProcessingException ignore) {
         }
+        this.invalidateLocal(key);
+        this.markRefreshed(key);
     }
 
     public Optional<AuthenticatedUserBo> get(@NonNull ClientAgentEnum type, @NonNull Serializable identifier) {
 
         String key = generateKey(type, identifier);
 
-        ValueOperations<Serializable, String> forValue = redisTemplate.opsForValue();
-        String s = forValue.get(key);
-        if (!StringUtils.hasText(s)) {
-            return Optional.empty();
+        if (trackingCache != null && trackingCache.isAvailable()) {
+            // 本地命中不访问Redis, 不计入Redis命令耗时
+            AuthenticatedUserBo cached = trackingCache.getIfPresent(key);
+            Optional<AuthenticatedUserBo> authUser;
+            if (cached != null) {
+                authUser = Optional.of(cached);
+            } else {
+                authUser = redisMetrics.time("get", metricPrefix(type), () -> trackingCache.load(
+                        key, raw -> this.decode((String) redisTemplate.getValueSerializer()
+                                                                      .deserialize(raw))));
+            }
+            authUser.ifPresent(ignore -> this.touch(key));
+            return authUser;
         }
 
-        try {
-            return Optional.of(objectMapper.readValue(s, AuthenticatedUserBo.class));
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+        ValueOperations<Serializable, String> forValue = redisTemplate.opsForValue();
+        String asString = redisMetrics.time("get", metricPrefix(type), () -> forValue.get(key));
+        if (asString != null && redisMetrics.isEnabled()) {
+            redisMetrics.payload("get", metricPrefix(type), asString.getBytes(StandardCharsets.UTF_8).length);
         }
+        AuthenticatedUserBo authUser = this.decode(asString);
+        if (authUser != null) {
+            this.touch(key);
+        }
+        return Optional.ofNullable(authUser);
     }
 
     public boolean exists(@NonNull ClientAgentEnum type, @NonNull Serializable identifier) {
 
         String key = generateKey(type, identifier);
 
-        return redisTemplate.hasKey(key);
+        return redisMetrics.time("exists", metricPrefix(type), () -> redisTemplate.hasKey(key));
     }
 
     public void clear(@NonNull ClientAgentEnum type, @NonNull Serializable identifier) {
         String key = generateKey(type, identifier);
 
-        redisTemplate.delete(key);
+        redisMetrics.time("clear", metricPrefix(type), () -> redisTemplate.delete(key));
+        if (pendingTouches != null) {
+            pendingTouches.remove(key);
+            recentlyRefreshed.invalidate(key);
+        }
+        this.invalidateLocal(key);
+        this.publishRevocation(type, identifier);
+    }
+
+    /**
+     * 通知网关该用户的令牌已吊销, 消息格式: ${端口}:${userId}:${吊销时间(毫秒)}
+     * <li>发布失败不影响登出, 会话已删除, 后续请求仍会被拒绝</li>
+     */
+    private void publishRevocation(ClientAgentEnum type, Serializable identifier) {
+        String channel = appSecurityProperties.getSession()
+                                              .getRevocationChannel();
+        if (!StringUtils.hasText(channel)) {
+            return;
+        }
+
+        byte[] rawChannel = channel.getBytes(StandardCharsets.UTF_8);
+        byte[] rawMessage = (type + ":" + identifier + ":" + System.currentTimeMillis()).getBytes(
+                StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(rawChannel, rawMessage));
+        } catch (Exception e) {
+            log.warn("Failed to publish token revocation of {}:{}", type, identifier, e);
+        }
+    }
+
+    /**
+     * 立即续期等待中的会话, 一次管道批量PEXPIRE
+     */
+    public void flushTouches() {
+        if (pendingTouches == null || pendingTouches.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(pendingTouches.size());
+        List<byte[]> rawKeys = new ArrayList<>(pendingTouches.size());
+        for (String key : pendingTouches) {
+            // 逐个移除, 与并发的touch不冲突, 移除后再次访问会进入下一批
+            if (pendingTouches.remove(key)) {
+                keys.add(key);
+                rawKeys.add(key.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (rawKeys.isEmpty()) {
+            return;
+        }
+
+        long ttlMillis = expired.toMillis();
+        try {
+            redisMetrics.time("touch", keyPrefix, () -> redisTemplate.executePipelined(
+                    (RedisCallback<Object>) connection -> {
+                        // PEXPIRE对已过期(不存在)的key无效, 不会复活已退出的会话
+                        rawKeys.forEach(rawKey -> connection.keyCommands()
+                                                            .pExpire(rawKey, ttlMillis));
+                        return null;
+                    }));
+            keys.forEach(this::markRefreshed);
+        } catch (Exception e) {
+            // 续期失败不影响请求, 会话按原有效期过期
+            log.warn("批量续期会话失败, 数量: {}", rawKeys.size(), e);
+        }
+    }
+
+    /**
+     * 记录需要续期的会话, 同一个key在一个批次内只续期一次, 最近续期过的key跳过
+     */
+    private void touch(String key) {
+        if (pendingTouches == null || recentlyRefreshed.getIfPresent(key) != null) {
+            return;
+        }
+        if (pendingTouches.size() >= appSecurityProperties.getSession()
+                                                          .getMaxPending()) {
+            return;
+        }
+        pendingTouches.add(key);
+    }
+
+    /**
+     * 记录key刚写入或续期, 未开启滑动续期时忽略
+     */
+    private void markRefreshed(String key) {
+        if (recentlyRefreshed != null) {
+            recentlyRefreshed.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 解析缓存的json
+     */
+    private AuthenticatedUserBo decode(String s) {
+        if (!StringUtils.hasText(s)) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(s, AuthenticatedUserBo.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 本节点写入后立即失效本地缓存, 不依赖推送到达
+     */
+    private void invalidateLocal(String key) {
+        if (trackingCache != null) {
+            trackingCache.invalidate(key);
+        }
     }
 }
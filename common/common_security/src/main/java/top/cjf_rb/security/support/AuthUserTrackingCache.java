@@ -0,0 +1,190 @@
+package top.cjf_rb.security.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.StringCodec;
+import lombok.extern.slf4j.Slf4j;
+import top.cjf_rb.security.pojo.bo.AuthenticatedUserBo;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <pre>
+ *     <h3>基于 CLIENT TRACKING 的认证用户本地缓存</h3>
+ *     <li>未命中时通过独立的跟踪连接读取Redis, Redis会记录该连接读取过的key</li>
+ *     <li>key被修改或删除时, Redis通过RESP3推送invalidate消息, 本地缓存随之失效</li>
+ *     <li>跟踪连接断开期间无法收到失效消息, 此时清空本地缓存并停止使用, 重连并重新开启跟踪后恢复</li>
+ * </pre>
+ */
+@Slf4j
+final class AuthUserTrackingCache implements PushListener, RedisConnectionStateListener, AutoCloseable {
+
+    private static final String INVALIDATE_TYPE = "invalidate";
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final Cache<String, AuthenticatedUserBo> cache;
+    /**
+     * 失效版本号, 每收到一次失效消息递增, 用于丢弃读取期间已失效的值
+     */
+    private final AtomicLong epoch = new AtomicLong();
+    private volatile boolean available;
+
+    private AuthUserTrackingCache(StatefulRedisConnection<byte[], byte[]> connection, long maximumSize) {
+        this.connection = connection;
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .build();
+    }
+
+    /**
+     * 开启跟踪连接
+     *
+     * @param client      Lettuce原生客户端
+     * @param maximumSize 本地缓存最大条数
+     * @return 开启失败(集群模式, 非RESP3协议等)时返回empty
+     */
+    static Optional<AuthUserTrackingCache> open(AbstractRedisClient client, long maximumSize) {
+        if (!(client instanceof RedisClient redisClient)) {
+            log.warn("当前Redis客户端不支持CLIENT TRACKING, 认证用户本地缓存未开启: {}", client);
+            return Optional.empty();
+        }
+
+        StatefulRedisConnection<byte[], byte[]> connection = null;
+        try {
+            connection = redisClient.connect(ByteArrayCodec.INSTANCE);
+            AuthUserTrackingCache trackingCache = new AuthUserTrackingCache(connection, maximumSize);
+            connection.addListener((PushListener) trackingCache);
+            connection.addListener((RedisConnectionStateListener) trackingCache);
+            connection.sync()
+                      .clientTracking(TrackingArgs.Builder.enabled());
+            trackingCache.available = true;
+            return Optional.of(trackingCache);
+        } catch (Exception e) {
+            log.warn("开启CLIENT TRACKING失败, 认证用户本地缓存未开启", e);
+            if (connection != null) {
+                connection.closeAsync();
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return 跟踪是否可用
+     */
+    boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 获取本地缓存, 不访问Redis
+     *
+     * @param key redis key
+     * @return 未命中时为null
+     */
+    AuthenticatedUserBo getIfPresent(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 通过跟踪连接读取Redis, 读取期间未收到失效消息时放入本地缓存
+     *
+     * @param key     redis key
+     * @param decoder 原始值解码器
+     * @return 缓存数据
+     */
+    Optional<AuthenticatedUserBo> load(String key, Function<byte[], AuthenticatedUserBo> decoder) {
+        long snapshot = epoch.get();
+        byte[] raw = connection.sync()
+                               .get(key.getBytes(StandardCharsets.UTF_8));
+        if (raw == null) {
+            return Optional.empty();
+        }
+
+        AuthenticatedUserBo value = decoder.apply(raw);
+        if (value != null && available && epoch.get() == snapshot) {
+            cache.put(key, value);
+        }
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * 本地失效
+     *
+     * @param key redis key
+     */
+    void invalidate(String key) {
+        epoch.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void onPushMessage(PushMessage message) {
+        if (!INVALIDATE_TYPE.equals(message.getType())) {
+            return;
+        }
+
+        epoch.incrementAndGet();
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        // 第二个元素为空时表示 FLUSHALL/FLUSHDB, 需清空全部
+        if (content.size() < 2 || !(content.get(1) instanceof List<?> keys)) {
+            cache.invalidateAll();
+            return;
+        }
+
+        for (Object key : keys) {
+            cache.invalidate(String.valueOf(key));
+        }
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        if (handler != connection) {
+            return;
+        }
+
+        // 断开期间无法收到失效消息
+        available = false;
+        epoch.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+        if (handler != connection) {
+            return;
+        }
+
+        // 重连后跟踪状态不会保留, 需要重新开启
+        connection.async()
+                  .clientTracking(TrackingArgs.Builder.enabled())
+                  .whenComplete((result, e) -> {
+                      if (e != null) {
+                          log.warn("重新开启CLIENT TRACKING失败, 认证用户本地缓存暂停使用", e);
+                          return;
+                      }
+                      cache.invalidateAll();
+                      available = true;
+                  });
+    }
+
+    @Override
+    public void close() {
+        available = false;
+        connection.closeAsync();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,248 @@
+package top.cjf_rb.gateway.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.AbstractServerHttpRequest;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.SslInfo;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import top.cjf_rb.gateway.constants.AppHeaderConst;
+import top.cjf_rb.gateway.exception.GatewayException;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+import top.cjf_rb.gateway.pojo.prop.JwtProperties;
+import top.cjf_rb.gateway.web.UrisMatcher;
+import top.cjf_rb.gateway.web.filter.AccessTokenGatewayFilterFactory;
+import top.cjf_rb.gateway.web.jwt.JwtRouter;
+import top.cjf_rb.gateway.web.jwt.JwtTokens;
+import top.cjf_rb.gateway.web.jwt.VerifiedTokenCache;
+
+import javax.crypto.SecretKey;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccessToken过滤器的吞吐量, 请求均不在白名单内, 需要校验token
+ * <ul>
+ *     <li>prebuilt: 当前实现, 启动时构建好各客户端的解析器</li>
+ *     <li>legacy: 原实现, 每次请求解码密钥并构建解析器, HashMap + Optional查找</li>
+ *     <li>cached: 预先构建解析器, 并开启已校验令牌的缓存</li>
+ * </ul>
+ * 结果(ops/ms, JDK 21.0.1, 单核, -f 2 -wi 5 -i 10 -w 1 -r 1):
+ * <pre>
+ * Benchmark  (mode)       Score    Error
+ * filter     prebuilt   181.954 ±  0.558
+ * filter     legacy     158.896 ±  2.290
+ * filter     cached    1199.552 ± 14.499
+ * parse      prebuilt   196.224 ±  2.431
+ * parse      legacy     167.966 ±  1.077
+ * parse      cached    2243.851 ± 12.178
+ * </pre>
+ * 预先构建解析器约提升15%, 签名校验仍是主要开销; 命中已校验令牌的缓存时跳过签名校验, 约为6.5倍
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessTokenFilterBenchmark {
+
+    private static final List<String> CLIENT_AGENTS = List.of("OEM", "ADMIN", "STUDENT", "SELF_STUDY_STUDENT");
+    private static final Set<String> WHITELIST = Set.of("/cjf_rb/common/auth/**", "/cjf_rb/common/captcha/**",
+        "/cjf_rb/openapi/**");
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    @Param({"prebuilt", "legacy", "cached"})
+    public String mode;
+
+    private GatewayFilter filter;
+    private VerifiedTokenCache verifiedTokenCache;
+    private ServerWebExchange[] exchanges;
+    private String[] tokens;
+
+    @Setup
+    public void setup() {
+        Map<String, JwtProperties> jwts = new LinkedHashMap<>();
+        exchanges = new ServerWebExchange[CLIENT_AGENTS.size()];
+        tokens = new String[CLIENT_AGENTS.size()];
+        for (int i = 0; i < CLIENT_AGENTS.size(); i++) {
+            String clientAgent = CLIENT_AGENTS.get(i);
+            SecretKey key = Jwts.SIG.HS512.key().build();
+            JwtProperties properties = new JwtProperties();
+            properties.setSecret(Encoders.BASE64.encode(key.getEncoded()));
+            properties.setExpires(Duration.ofHours(12));
+            jwts.put(clientAgent, properties);
+
+            tokens[i] = Jwts.builder().id(String.valueOf(10000 + i)).audience().add(clientAgent).and()
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(12))).signWith(key)
+                .compact();
+            exchanges[i] = exchange(clientAgent, tokens[i]);
+        }
+
+        JwtRouter router = "legacy".equals(mode) ? new LegacyJwtRouter(jwts) : new JwtRouter(jwts);
+        AppGatewayProperties.TokenCache tokenCache = new AppGatewayProperties.TokenCache();
+        tokenCache.setEnabled("cached".equals(mode));
+        verifiedTokenCache = new VerifiedTokenCache(router, tokenCache, null);
+        filter = new AccessTokenGatewayFilterFactory(verifiedTokenCache, new UrisMatcher(WHITELIST))
+            .apply(new AccessTokenGatewayFilterFactory.Config());
+    }
+
+    /**
+     * 完整的过滤器调用, 包括白名单匹配、token校验及请求头改写
+     */
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void filter() {
+        for (ServerWebExchange exchange : exchanges) {
+            filter.filter(exchange, CHAIN).block();
+        }
+    }
+
+    /**
+     * 只有客户端查找及token校验(cached时为缓存查找)
+     */
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void parse(Blackhole blackhole) {
+        for (int i = 0; i < tokens.length; i++) {
+            blackhole.consume(verifiedTokenCache.verify(CLIENT_AGENTS.get(i), tokens[i]));
+        }
+    }
+
+    private static ServerWebExchange exchange(String clientAgent, String token) {
+        MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
+        headers.add(AppHeaderConst.ACCESS_TOKEN, token);
+        headers.add(AppHeaderConst.CLIENT_AGENT, clientAgent);
+        BenchmarkRequest request = new BenchmarkRequest(URI.create("http://localhost/cjf_rb/common/user/info"),
+            headers);
+        return new DefaultServerWebExchange(request, new BenchmarkResponse(), new DefaultWebSessionManager(),
+            ServerCodecConfigurer.create(), new AcceptHeaderLocaleContextResolver());
+    }
+
+    /**
+     * 原实现
+     */
+    private static final class LegacyJwtRouter extends JwtRouter {
+
+        private final Map<String, JwtTokens> router = new HashMap<>();
+
+        LegacyJwtRouter(Map<String, JwtProperties> jwts) {
+            super(jwts);
+            jwts.forEach((key, value) -> router.put(key, new LegacyJwtTokens(value)));
+        }
+
+        @Override
+        public JwtTokens distribute(String clientAgent) {
+            return Optional.ofNullable(router.get(clientAgent))
+                .orElseThrow(() -> new GatewayException("undefined client agent"));
+        }
+    }
+
+    private static final class LegacyJwtTokens extends JwtTokens {
+
+        private final JwtProperties jwtProperties;
+
+        LegacyJwtTokens(JwtProperties jwtProperties) {
+            super(jwtProperties);
+            this.jwtProperties = jwtProperties;
+        }
+
+        @Override
+        public Claims parse(String token) {
+            SecretKey secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProperties.getSecret()));
+
+            return Jwts.parser().verifyWith(secretKey)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        }
+    }
+
+    private static final class BenchmarkRequest extends AbstractServerHttpRequest {
+
+        BenchmarkRequest(URI uri, MultiValueMap<String, String> headers) {
+            super(HttpMethod.GET, uri, null, new HttpHeaders(headers));
+        }
+
+        @Override
+        protected MultiValueMap<String, HttpCookie> initCookies() {
+            return new LinkedMultiValueMap<>();
+        }
+
+        @Override
+        protected SslInfo initSslInfo() {
+            return null;
+        }
+
+        @Override
+        public <T> T getNativeRequest() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.empty();
+        }
+    }
+
+    private static final class BenchmarkResponse extends AbstractServerHttpResponse {
+
+        BenchmarkResponse() {
+            super(DefaultDataBufferFactory.sharedInstance);
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected void applyStatusCode() {
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+    }
+
+}
@@ -1,18 +1,17 @@
 package top.cjf_rb.gateway.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
 import top.cjf_rb.gateway.web.UrisMatcher;
 import top.cjf_rb.gateway.web.jwt.JwtRouter;
-import top.cjf_rb.gateway.web.jwt.JwtTokens;
-
-import java.util.HashMap;
-import java.util.Map;
+import top.cjf_rb.gateway.web.jwt.VerifiedTokenCache;
 
 /**
  * @author cjf
@@ -33,10 +32,11 @@ public class GatewayConfig {
 
     @Bean
     public JwtRouter jwtRouter() {
-        Map<String, JwtTokens> router = new HashMap<>();
-
-        appGatewayProperties.getJwts().forEach((key, value) -> router.put(key, new JwtTokens(value)));
+        return new JwtRouter(appGatewayProperties.getJwts());
+    }
 
-        return new JwtRouter(router);
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(JwtRouter jwtRouter, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new VerifiedTokenCache(jwtRouter, appGatewayProperties.getTokenCache(), meterRegistry.getIfAvailable());
     }
 }
@@ -15,7 +15,11 @@ public enum GatewayErrorCodeEnum implements ErrorCode {
     /**
      * 鉴权相关
      */
-    NOT_LOGGED_IN("未登录"), LOGIN_EXPIRED("登录已过期, 请重新登录"), LOGIN_INCORRECT("登录已失效, 请重新登录");
+    NOT_LOGGED_IN("未登录"), LOGIN_EXPIRED("登录已过期, 请重新登录"), LOGIN_INCORRECT("登录已失效, 请重新登录"),
+    /**
+     * 限流
+     */
+    TOO_MANY_REQUESTS("请求过于频繁, 请稍后再试");
 
     private final String msg;
 
@@ -0,0 +1,13 @@
+package top.cjf_rb.gateway.exception;
+
+/**
+ * 请求被限流异常
+ *
+ */
+public class RateLimitedException extends GatewayException {
+
+    public RateLimitedException(String msg) {
+        super(msg);
+    }
+
+}
@@ -3,6 +3,7 @@ package top.cjf_rb.gateway.pojo.prop;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,6 +19,12 @@ public class AppGatewayProperties {
 
     private Whitelist whitelist;
 
+    private TokenCache tokenCache = new TokenCache();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private AccessLog accessLog = new AccessLog();
+
     /**
      * 白名单
      */
@@ -29,4 +36,73 @@ public class AppGatewayProperties {
         private Set<String> uris;
 
     }
+
+    /**
+     * 已校验令牌的本地缓存
+     */
+    @Data
+    public static class TokenCache {
+        /**
+         * 是否开启, 开启后同一令牌在缓存有效期内不再重复校验签名
+         */
+        private boolean enabled = true;
+        /**
+         * 最多缓存的令牌数
+         */
+        private long maximumSize = 10000;
+        /**
+         * 缓存的最长时间, 同时不会超过令牌本身的过期时间
+         */
+        private Duration maxTtl = Duration.ofMinutes(5);
+        /**
+         * 令牌吊销通知的Redis频道, 消息格式为 ${客户端}:${用户id}
+         */
+        private String revocationChannel = "app:gateway:token-revoked";
+        /**
+         * 吊销记录的保留时间, 应不小于令牌的有效期, 期间签发时间早于吊销时间的令牌被拒绝
+         */
+        private Duration revocationRetention = Duration.ofHours(12);
+
+    }
+
+    /**
+     * 网关限流
+     */
+    @Data
+    public static class RateLimit {
+        /**
+         * 与Redis同步各节点消耗量的间隔, 间隔越短越接近全局限流, Redis压力越大
+         */
+        private Duration syncInterval = Duration.ofSeconds(1);
+        /**
+         * 本地最多保留的令牌桶数量
+         */
+        private long maximumSize = 100000;
+        /**
+         * 网关前可信代理(负载均衡、Ingress)的层数, 按ip限流时从X-Forwarded-For末尾跳过这些代理取客户端IP,
+         * 0表示直接使用连接的来源地址; 大于实际层数时客户端可伪造IP, 小于时多个客户端共用代理的IP
+         */
+        private int trustedProxies = 1;
+
+    }
+
+    /**
+     * 访问日志
+     */
+    @Data
+    public static class AccessLog {
+        /**
+         * 环形缓冲的大小, 向上取2的幂, 缓冲已满时新的日志被丢弃
+         */
+        private int bufferSize = 8192;
+        /**
+         * 每批最多写出的日志条数
+         */
+        private int batchSize = 256;
+        /**
+         * 缓冲为空时后台线程的等待间隔
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+    }
 }
@@ -0,0 +1,221 @@
+package top.cjf_rb.gateway.web;
+
+import java.util.Arrays;
+
+/**
+ * Ant风格路径模式的前缀树
+ * <ul>
+ * <li>按'/'分段构建, 段内支持'*'(任意个字符)和'?'(单个字符), 整段'**'匹配0个或多个段</li>
+ * <li>匹配时按下标遍历路径, 不拆分字符串, 不创建对象</li>
+ * <li>与{@link org.springframework.util.AntPathMatcher}一致: 忽略空段, 模式与路径的开头及结尾'/'须一致,
+ * 'a/*'可匹配'a/', 但前面有'**'时不匹配</li>
+ * <li>不支持{变量}模板, 由调用方处理</li>
+ * </ul>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+final class PathPatternTrie {
+
+    private static final char SEPARATOR = '/';
+
+    /**
+     * 以'/'开头的模式
+     */
+    private final Node absolute = new Node();
+    /**
+     * 不以'/'开头的模式
+     */
+    private final Node relative = new Node();
+
+    /**
+     * 添加模式
+     *
+     * @param pattern Ant风格路径模式
+     */
+    void add(String pattern) {
+        Node node = pattern.charAt(0) == SEPARATOR ? absolute : relative;
+        int length = pattern.length();
+        int start = skipSeparators(pattern, 0);
+        while (start < length) {
+            int end = segmentEnd(pattern, start);
+            node = node.child(pattern.substring(start, end));
+            start = skipSeparators(pattern, end);
+        }
+
+        if (pattern.charAt(length - 1) == SEPARATOR) {
+            node.endWithSeparator = true;
+        } else {
+            node.end = true;
+        }
+    }
+
+    /**
+     * 路径是否匹配任一模式
+     *
+     * @param path 路径
+     * @return 匹配上则true
+     */
+    boolean match(String path) {
+        if (path.isEmpty()) {
+            return false;
+        }
+
+        Node root = path.charAt(0) == SEPARATOR ? absolute : relative;
+        return matches(root, path, 0, path.charAt(path.length() - 1) == SEPARATOR, false);
+    }
+
+    /**
+     * @param afterDoubleStar 已经过'**', AntPathMatcher只在模式中没有'**'时才允许结尾的'*'匹配路径结尾的'/'
+     */
+    private static boolean matches(Node node, String path, int from, boolean trailingSeparator,
+                                   boolean afterDoubleStar) {
+        int length = path.length();
+        int start = skipSeparators(path, from);
+
+        Node doubleStar = node.doubleStar;
+        if (doubleStar != null) {
+            // 以'**'结尾的模式匹配剩余的任意路径
+            if (doubleStar.end || doubleStar.endWithSeparator) {
+                return true;
+            }
+            // '**'依次尝试消耗0个、1个...段
+            for (int next = start; ; ) {
+                if (matches(doubleStar, path, next, trailingSeparator, true)) {
+                    return true;
+                }
+                if (next >= length) {
+                    break;
+                }
+                next = skipSeparators(path, segmentEnd(path, next));
+            }
+        }
+
+        if (start >= length) {
+            if (trailingSeparator) {
+                return node.endWithSeparator || (!afterDoubleStar && node.star != null
+                        && (node.star.end || node.star.endWithSeparator));
+            }
+            return node.end;
+        }
+
+        int end = segmentEnd(path, start);
+        int segmentLength = end - start;
+        String[] literals = node.literals;
+        for (int i = 0; i < literals.length; i++) {
+            String literal = literals[i];
+            if (literal.length() == segmentLength && path.regionMatches(start, literal, 0, segmentLength)
+                    && matches(node.literalNodes[i], path, end, trailingSeparator, afterDoubleStar)) {
+                return true;
+            }
+        }
+
+        String[] globs = node.globs;
+        for (int i = 0; i < globs.length; i++) {
+            if (globMatch(globs[i], path, start, end)
+                    && matches(node.globNodes[i], path, end, trailingSeparator, afterDoubleStar)) {
+                return true;
+            }
+        }
+
+        return node.star != null && matches(node.star, path, end, trailingSeparator, afterDoubleStar);
+    }
+
+    /**
+     * 段内通配符匹配, '*'回溯到最近一次的位置
+     */
+    private static boolean globMatch(String glob, String path, int start, int end) {
+        int globLength = glob.length();
+        int g = 0;
+        int p = start;
+        int starG = -1;
+        int starP = -1;
+        while (p < end) {
+            char c = g < globLength ? glob.charAt(g) : 0;
+            if (g < globLength && (c == '?' || c == path.charAt(p))) {
+                g++;
+                p++;
+            } else if (c == '*') {
+                starG = g++;
+                starP = p;
+            } else if (starG >= 0) {
+                g = starG + 1;
+                p = ++starP;
+            } else {
+                return false;
+            }
+        }
+
+        while (g < globLength && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == globLength;
+    }
+
+    private static int skipSeparators(String value, int from) {
+        int length = value.length();
+        while (from < length && value.charAt(from) == SEPARATOR) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int segmentEnd(String value, int from) {
+        int end = value.indexOf(SEPARATOR, from);
+        return end < 0 ? value.length() : end;
+    }
+
+    private static final class Node {
+
+        private static final String[] NO_SEGMENTS = new String[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        private String[] literals = NO_SEGMENTS;
+        private Node[] literalNodes = NO_NODES;
+        private String[] globs = NO_SEGMENTS;
+        private Node[] globNodes = NO_NODES;
+        private Node star;
+        private Node doubleStar;
+        /**
+         * 有模式在此结束, 且不以'/'结尾
+         */
+        private boolean end;
+        /**
+         * 有模式在此结束, 且以'/'结尾
+         */
+        private boolean endWithSeparator;
+
+        private Node child(String segment) {
+            if ("**".equals(segment)) {
+                return doubleStar == null ? doubleStar = new Node() : doubleStar;
+            }
+            if ("*".equals(segment)) {
+                return star == null ? star = new Node() : star;
+            }
+
+            boolean glob = segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0;
+            String[] segments = glob ? globs : literals;
+            Node[] nodes = glob ? globNodes : literalNodes;
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(segment)) {
+                    return nodes[i];
+                }
+            }
+
+            Node node = new Node();
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            nodes = Arrays.copyOf(nodes, nodes.length + 1);
+            segments[segments.length - 1] = segment;
+            nodes[nodes.length - 1] = node;
+            if (glob) {
+                globs = segments;
+                globNodes = nodes;
+            } else {
+                literals = segments;
+                literalNodes = nodes;
+            }
+            return node;
+        }
+    }
+
+}
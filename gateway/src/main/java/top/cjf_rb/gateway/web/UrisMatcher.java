@@ -4,20 +4,47 @@ import lombok.NonNull;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * <pre>
+ *     <h2>Uri路径匹配, 规则与{@link AntPathMatcher}一致</h2>
+ *     <li>创建时将模式编译为按段的前缀树, 匹配时一次遍历路径, 与模式数量基本无关</li>
+ *     <li>含{变量}模板的模式仍使用{@link AntPathMatcher}</li>
+ *     <li>匹配结果按路径缓存, 超过上限后不再缓存新的路径, 避免带id等变化部分的路径占满内存</li>
+ * </pre>
+ *
  * @Author Zoe
  * @create 2024/3/18
  */
 public class UrisMatcher {
 
+    /**
+     * 缓存的路径数上限
+     */
+    private static final int CACHE_LIMIT = 4096;
+
     private final PathMatcher pathMatcher = new AntPathMatcher();
-    private final Set<String> paths;
+    private final PathPatternTrie trie = new PathPatternTrie();
+    private final List<String> templates = new ArrayList<>();
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
 
     public UrisMatcher(@NonNull Set<String> paths) {
-        this.paths = paths;
+        for (String pattern : paths) {
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            if (pattern.indexOf('{') >= 0) {
+                templates.add(pattern);
+            } else {
+                trie.add(pattern);
+            }
+        }
     }
 
     public static UrisMatcher any() {
@@ -35,7 +62,20 @@ public class UrisMatcher {
      * @return 匹配上则true, 反之, false
      */
     public boolean match(@NonNull String path) {
-        for (String pattern : paths) {
+        Boolean cached = results.get(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean matched = trie.match(path) || this.matchTemplates(path);
+        if (results.size() < CACHE_LIMIT) {
+            results.put(path, matched);
+        }
+        return matched;
+    }
+
+    private boolean matchTemplates(String path) {
+        for (String pattern : templates) {
             if (pathMatcher.match(pattern, path)) {
                 return true;
             }
@@ -0,0 +1,283 @@
+package top.cjf_rb.gateway.web.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <pre>
+ *     <h2>访问日志缓冲</h2>
+ *     <li>启动时分配固定大小的环形缓冲, 请求线程通过CAS占位后写入槽位, 不加锁、不阻塞事件循环</li>
+ *     <li>缓冲已满时直接丢弃并计数, 不等待后台线程</li>
+ *     <li>后台线程按批取出, 每批拼接为多行JSON(每条一行)后一次写入日志 ACCESS_LOG,
+ *     可在logback中为该日志单独配置appender及文件, 建议pattern为 %msg%n</li>
+ *     <li>ACCESS_LOG未开启INFO时不记录</li>
+ *     <li>指标: gateway.access.log.dropped, gateway.access.log.pending</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class AccessLogBuffer {
+
+    /**
+     * 访问日志输出的日志名
+     */
+    public static final String LOGGER_NAME = "ACCESS_LOG";
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(LOGGER_NAME);
+
+    @Resource
+    private AppGatewayProperties appGatewayProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 下一个写入的序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 下一个读取的序号, 只由后台线程推进
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private Slot[] slots;
+    private int mask;
+    private int batchSize;
+    private long flushIntervalNanos;
+    private Counter droppedCounter;
+    private Thread consumer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        AppGatewayProperties.AccessLog properties = appGatewayProperties.getAccessLog();
+        int size = Integer.highestOneBit(Math.max(properties.getBufferSize() - 1, 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i - size);
+        }
+        mask = size - 1;
+        batchSize = Math.max(properties.getBatchSize(), 1);
+        flushIntervalNanos = properties.getFlushInterval().toNanos();
+
+        if (meterRegistry != null) {
+            droppedCounter = Counter.builder("gateway.access.log.dropped")
+                .description("缓冲已满被丢弃的访问日志数")
+                .register(meterRegistry);
+            Gauge.builder("gateway.access.log.pending", this, AccessLogBuffer::pending)
+                .description("缓冲中待写入的访问日志数")
+                .register(meterRegistry);
+        }
+
+        running = true;
+        consumer = Thread.ofPlatform().name("gateway-access-log").daemon().start(this::consume);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (consumer == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            // 后台线程退出前会写完缓冲中剩余的日志
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.sum() > 0) {
+            log.warn("{} access log entries were dropped because the buffer was full", dropped.sum());
+        }
+    }
+
+    /**
+     * 记录一条访问日志, 缓冲已满时丢弃
+     *
+     * @param method        请求方法
+     * @param path          请求路径
+     * @param routeId       路由id, 未匹配路由时为null
+     * @param status        响应状态码, 未知时为0
+     * @param bytes         响应体字节数
+     * @param latencyMicros 请求进入网关到响应结束的耗时(微秒), 包含上游服务耗时
+     * @param traceId       链路id
+     */
+    public void record(String method, String path, String routeId, int status, long bytes, long latencyMicros,
+                       String traceId) {
+        if (!running || !ACCESS_LOG.isInfoEnabled()) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= slots.length) {
+                dropped.increment();
+                if (droppedCounter != null) {
+                    droppedCounter.increment();
+                }
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.method = method;
+        slot.path = path;
+        slot.routeId = routeId;
+        slot.status = status;
+        slot.bytes = bytes;
+        slot.latencyMicros = latencyMicros;
+        slot.traceId = traceId;
+        // 发布, 后台线程看到序号后才读取其他字段
+        slot.sequence = sequence;
+    }
+
+    private long pending() {
+        return tail.get() - head.get();
+    }
+
+    private void consume() {
+        StringBuilder batch = new StringBuilder(batchSize * 256);
+        while (true) {
+            boolean stopping = !running;
+            int drained;
+            try {
+                drained = this.drainTo(batch);
+                if (drained > 0) {
+                    ACCESS_LOG.info(batch.toString());
+                }
+            } catch (Exception e) {
+                // 写入失败的这批日志丢弃, 不影响后续
+                log.warn("Write access log failed", e);
+                drained = 1;
+            }
+            batch.setLength(0);
+
+            if (drained == 0) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * 取出最多batchSize条已发布的日志, 每条一行JSON
+     *
+     * @return 取出的条数
+     */
+    private int drainTo(StringBuilder batch) {
+        long sequence = head.get();
+        int drained = 0;
+        while (drained < batchSize) {
+            Slot slot = slots[(int) (sequence & mask)];
+            // 已占位但尚未写完的槽位, 等待下一轮
+            if (slot.sequence != sequence) {
+                break;
+            }
+
+            if (drained > 0) {
+                batch.append('\n');
+            }
+            slot.appendTo(batch);
+            slot.clear();
+            head.lazySet(++sequence);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 环形缓冲的槽位, 启动时分配后重复使用
+     */
+    private static final class Slot {
+
+        /**
+         * 当前写入的序号, 写完其他字段后最后设置
+         */
+        private volatile long sequence;
+        private long timestamp;
+        private String method;
+        private String path;
+        private String routeId;
+        private int status;
+        private long bytes;
+        private long latencyMicros;
+        private String traceId;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private void appendTo(StringBuilder sb) {
+            sb.append("{\"timestamp\":").append(timestamp);
+            appendField(sb, "traceId", traceId);
+            appendField(sb, "method", method);
+            appendField(sb, "path", path);
+            appendField(sb, "route", routeId);
+            sb.append(",\"status\":").append(status)
+                .append(",\"bytes\":").append(bytes)
+                .append(",\"latencyMicros\":").append(latencyMicros)
+                .append('}');
+        }
+
+        /**
+         * 释放引用, 避免槽位长期持有请求的字符串
+         */
+        private void clear() {
+            method = null;
+            path = null;
+            routeId = null;
+            traceId = null;
+        }
+
+        private static void appendField(StringBuilder sb, String name, String value) {
+            sb.append(",\"").append(name).append("\":");
+            if (value == null) {
+                sb.append("null");
+                return;
+            }
+
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            sb.append('"');
+        }
+    }
+
+}
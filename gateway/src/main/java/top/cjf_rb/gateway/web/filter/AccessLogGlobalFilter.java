@@ -1,38 +1,69 @@
 package top.cjf_rb.gateway.web.filter;
 
-import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.Resource;
+import org.reactivestreams.Publisher;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
-import org.springframework.http.HttpMethod;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import top.cjf_rb.gateway.constants.AppHeaderConst;
+import top.cjf_rb.gateway.web.accesslog.AccessLogBuffer;
 
-import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
- * 访问日志
+ * <pre>
+ *     <h2>访问日志</h2>
+ *     <li>记录请求方法、路径、路由、状态码、响应字节数、耗时及链路id, 写入{@link AccessLogBuffer}后由后台线程批量输出</li>
+ *     <li>请求线程上只做计数和赋值, 不格式化、不输出日志</li>
+ *     <li>下游过滤器出错时, 在异常处理写出响应时记录最终的状态码</li>
+ * </pre>
  */
-@Slf4j
 @Component
 public final class AccessLogGlobalFilter implements GlobalFilter, Ordered {
 
+    @Resource
+    private AccessLogBuffer accessLogBuffer;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startNanos = System.nanoTime();
         ServerHttpRequest request = exchange.getRequest();
-        HttpMethod method = request.getMethod();
-        String rawPath = request.getURI().getRawPath();
-        String traceId = request.getHeaders().getFirst(AppHeaderConst.TRACE_ID);
+        ServerHttpResponse response = exchange.getResponse();
+        CountingResponse countingResponse = new CountingResponse(response);
 
-        log.info("[{}] Request: {} {}", traceId, method, rawPath);
+        return chain.filter(exchange.mutate().response(countingResponse).build()).doFinally(signal -> {
+            if (signal == SignalType.ON_ERROR && !response.isCommitted()) {
+                // 异常由全局异常处理写出, 写出前状态码才确定
+                response.beforeCommit(() -> {
+                    this.record(exchange, request, response, response.getHeaders().getContentLength(), startNanos);
+                    return Mono.empty();
+                });
+            } else {
+                this.record(exchange, request, response, countingResponse.bytes, startNanos);
+            }
+        });
+    }
 
-        ServerHttpResponse response = exchange.getResponse();
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> log.info("[{}] Response Status: {}", traceId,
-                Objects.requireNonNull(response.getStatusCode()).value())));
+    private void record(ServerWebExchange exchange, ServerHttpRequest request, ServerHttpResponse response,
+                        long bytes, long startNanos) {
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        HttpStatusCode status = response.getStatusCode();
+        accessLogBuffer.record(request.getMethod().name(), request.getURI().getRawPath(),
+                route == null ? null : route.getId(), status == null ? 0 : status.value(), bytes, latencyMicros,
+                request.getHeaders().getFirst(AppHeaderConst.TRACE_ID));
     }
 
     @Override
@@ -40,4 +71,34 @@ public final class AccessLogGlobalFilter implements GlobalFilter, Ordered {
         return Ordered.HIGHEST_PRECEDENCE + 10;
     }
 
+    /**
+     * 统计写出的响应体字节数
+     */
+    private static final class CountingResponse extends ServerHttpResponseDecorator {
+
+        /**
+         * 同一响应的写出是串行的, 响应结束后才读取
+         */
+        private volatile long bytes;
+
+        private CountingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(this::count));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(part -> Flux.from(part).doOnNext(this::count)));
+        }
+
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        private void count(DataBuffer buffer) {
+            bytes += buffer.readableByteCount();
+        }
+    }
+
 }
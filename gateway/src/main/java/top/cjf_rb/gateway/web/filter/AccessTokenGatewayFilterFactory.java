@@ -14,7 +14,7 @@ import org.springframework.util.StringUtils;
 import top.cjf_rb.gateway.constants.AppHeaderConst;
 import top.cjf_rb.gateway.exception.CredentialsNotFoundException;
 import top.cjf_rb.gateway.web.UrisMatcher;
-import top.cjf_rb.gateway.web.jwt.JwtRouter;
+import top.cjf_rb.gateway.web.jwt.VerifiedTokenCache;
 
 import java.util.List;
 
@@ -23,6 +23,7 @@ import java.util.List;
  *     <h2>token处理的过滤器</h2>
  *     <li>配置名称为 - AccessToken （必须切掉前缀） </li>
  *     <li>与配置的GateFilter工厂可共用</li>
+ *     <li>令牌校验结果经{@link VerifiedTokenCache}缓存, 同一令牌重复访问时不再校验签名</li>
  * </pre>
  *
  */
@@ -32,13 +33,17 @@ public class AccessTokenGatewayFilterFactory
     extends AbstractGatewayFilterFactory<AccessTokenGatewayFilterFactory.Config> {
 
     public static final String TOKEN_NAME = "name";
+    /**
+     * 令牌校验通过后, 当前用户(${客户端}:${用户id})保存在exchange的该属性中, 供后续过滤器(如限流)使用
+     */
+    public static final String CURRENT_USER_ATTR = AccessTokenGatewayFilterFactory.class.getName() + ".currentUser";
 
     private final UrisMatcher urisMatcher;
-    private final JwtRouter jwtRouter;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public AccessTokenGatewayFilterFactory(JwtRouter jwtRouter, UrisMatcher urisMatcher) {
+    public AccessTokenGatewayFilterFactory(VerifiedTokenCache verifiedTokenCache, UrisMatcher urisMatcher) {
         super(Config.class);
-        this.jwtRouter = jwtRouter;
+        this.verifiedTokenCache = verifiedTokenCache;
         this.urisMatcher = urisMatcher;
     }
 
@@ -65,7 +70,8 @@ public class AccessTokenGatewayFilterFactory
                 }
 
                 try {
-                    Claims claims = jwtRouter.distribute(clientAgent).parse(accessToken);
+                    Claims claims = verifiedTokenCache.verify(clientAgent, accessToken);
+                    exchange.getAttributes().put(CURRENT_USER_ATTR, clientAgent + ":" + claims.getId());
                     ServerHttpRequest newRequest =
                         rawRequest.mutate().header(AppHeaderConst.CURRENT_USER, claims.getId())
                             .header(AppHeaderConst.CLIENT_AGENT, claims.getAudience().toArray(new String[0])).build();
@@ -80,7 +86,8 @@ public class AccessTokenGatewayFilterFactory
                 throw new CredentialsNotFoundException("无法获取Access-Token 或 Client-Agent");
             }
 
-            Claims claims = jwtRouter.distribute(clientAgent).parse(accessToken);
+            Claims claims = verifiedTokenCache.verify(clientAgent, accessToken);
+            exchange.getAttributes().put(CURRENT_USER_ATTR, clientAgent + ":" + claims.getId());
 
             // 组装新的请求
             ServerHttpRequest newRequest = rawRequest.mutate().header(AppHeaderConst.CURRENT_USER, claims.getId())
@@ -0,0 +1,130 @@
+package top.cjf_rb.gateway.web.filter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import top.cjf_rb.gateway.constants.AppHeaderConst;
+import top.cjf_rb.gateway.exception.RateLimitedException;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+import top.cjf_rb.gateway.web.ratelimit.GatewayRateLimiter;
+import top.cjf_rb.gateway.web.ratelimit.RateLimitDecision;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <pre>
+ *     <h2>限流的过滤器</h2>
+ *     <li>配置名称为 - RateLimit, 示例: RateLimit=100, 1s, user</li>
+ *     <li>参数依次为: 窗口内允许的次数, 窗口时长, 限流维度(user|ip)</li>
+ *     <li>user: 按AccessToken过滤器解析出的用户限流, 未登录时按IP; 因此须配置在AccessToken之后</li>
+ *     <li>ip: 按 app.gateway.rate-limit.trusted-proxies 从X-Forwarded-For中取客户端IP, 须与网关前的代理层数一致</li>
+ *     <li>响应头 X-Api-RateLimit-Limit 为剩余次数, 被限流时 X-Api-RateLimit-Reset 为可重试的时间戳(毫秒)</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Component
+public class RateLimitGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+    public static final String PERMITS = "permits";
+    public static final String WINDOW = "window";
+    public static final String KEY_BY = "keyBy";
+
+    private final GatewayRateLimiter gatewayRateLimiter;
+    private final RemoteAddressResolver remoteAddressResolver;
+
+    public RateLimitGatewayFilterFactory(GatewayRateLimiter gatewayRateLimiter,
+                                         AppGatewayProperties appGatewayProperties) {
+        super(Config.class);
+        this.gatewayRateLimiter = gatewayRateLimiter;
+        int trustedProxies = appGatewayProperties.getRateLimit().getTrustedProxies();
+        this.remoteAddressResolver = trustedProxies > 0 ?
+            XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies) : new RemoteAddressResolver() {};
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of(PERMITS, WINDOW, KEY_BY);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getPermits() <= 0 || config.getWindow().isZero() || config.getWindow().isNegative()) {
+            throw new IllegalArgumentException("RateLimit permits and window must be positive");
+        }
+
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "-";
+            RateLimitDecision decision = gatewayRateLimiter.tryAcquire(routeId, this.resolveKey(exchange, config),
+                config.getPermits(), config.getWindow());
+
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            headers.set(AppHeaderConst.API_RATE_LIMIT_LIMIT, String.valueOf(decision.remaining()));
+            if (!decision.allowed()) {
+                headers.set(AppHeaderConst.API_RATE_LIMIT_RESET,
+                    String.valueOf(System.currentTimeMillis() + decision.retryAfterMillis()));
+                return Mono.error(new RateLimitedException("路由 " + routeId + " 请求过于频繁"));
+            }
+
+            return chain.filter(exchange);
+        };
+    }
+
+    /**
+     * 限流维度, 登录用户为 user:${客户端}:${用户id}, 其余为 ip:${IP}
+     */
+    private String resolveKey(ServerWebExchange exchange, Config config) {
+        if (Config.KEY_BY_USER.equalsIgnoreCase(config.getKeyBy())) {
+            String currentUser = exchange.getAttribute(AccessTokenGatewayFilterFactory.CURRENT_USER_ATTR);
+            if (currentUser != null) {
+                return "user:" + currentUser;
+            }
+        }
+
+        InetSocketAddress remoteAddress = remoteAddressResolver.resolve(exchange);
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "ip:unknown";
+        }
+        return "ip:" + remoteAddress.getAddress().getHostAddress();
+    }
+
+    @Override
+    public String name() {
+        // 返回用于配置的名称
+        return "RateLimit";
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        public static final String KEY_BY_USER = "user";
+        public static final String KEY_BY_IP = "ip";
+
+        /**
+         * 窗口内允许的次数
+         */
+        private long permits = 100;
+        /**
+         * 窗口时长
+         */
+        private Duration window = Duration.ofSeconds(1);
+        /**
+         * 限流维度, user或ip
+         */
+        private String keyBy = KEY_BY_USER;
+    }
+}
@@ -22,6 +22,7 @@ import top.cjf_rb.gateway.constants.GatewayErrorCodeEnum;
 import top.cjf_rb.gateway.exception.CredentialsNotFoundException;
 import top.cjf_rb.gateway.exception.ErrorCode;
 import top.cjf_rb.gateway.exception.GatewayException;
+import top.cjf_rb.gateway.exception.RateLimitedException;
 import top.cjf_rb.gateway.pojo.vo.ErrorVo;
 
 import java.nio.charset.StandardCharsets;
@@ -89,6 +90,13 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
             return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
         }
 
+        if (ex instanceof RateLimitedException) {
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            byte[] bytes = this.errorVoToBytes(GatewayErrorCodeEnum.TOO_MANY_REQUESTS);
+            log.debug("[{}] 请求被限流:{}", traceId, ex.getMessage());
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        }
+
         response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
         byte[] bytes = this.errorVoToBytes(GatewayErrorCodeEnum.GATEWAY_ERROR);
         log.error("[{}] 网关内部错误", traceId, ex);
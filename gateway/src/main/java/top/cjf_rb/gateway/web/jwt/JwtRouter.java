@@ -1,23 +1,33 @@
 package top.cjf_rb.gateway.web.jwt;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import top.cjf_rb.gateway.exception.GatewayException;
+import top.cjf_rb.gateway.pojo.prop.JwtProperties;
 
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * <pre>
  *     <h2>
  *         多权限路由分发者
  *     </h2>
+ *     <li>各客户端的解析器在创建及密钥轮换时预先构建, 请求时只做查找</li>
+ *     <li>客户端只有少数几个, 按数组顺序比较比哈希查找更快, 且不创建Optional</li>
+ *     <li>轮换时整体替换, 某客户端的新密钥无效时拒绝该客户端的所有令牌, 不回退到可能已泄露的旧密钥</li>
  * </pre>
  *
  */
-@RequiredArgsConstructor
+@Slf4j
 public class JwtRouter {
 
-    private final Map<String, JwtTokens> router;
+    private volatile Route route;
+
+    /**
+     * @param jwts 客户端 -> jwt配置
+     */
+    public JwtRouter(Map<String, JwtProperties> jwts) {
+        this.refresh(jwts);
+    }
 
     /**
      * 获取该客户端的配置
@@ -26,8 +36,53 @@ public class JwtRouter {
      * @return jwt配置参数
      */
     public JwtTokens distribute(String clientAgent) {
-        return Optional.ofNullable(router.get(clientAgent))
-            .orElseThrow(() -> new GatewayException("undefined client agent"));
+        JwtTokens jwtTokens = this.find(clientAgent);
+        if (jwtTokens == null) {
+            throw new GatewayException("undefined client agent");
+        }
+        return jwtTokens;
+    }
+
+    /**
+     * 重新构建所有客户端的解析器, 用于密钥轮换
+     *
+     * @param jwts 客户端 -> jwt配置
+     */
+    public synchronized void refresh(Map<String, JwtProperties> jwts) {
+        String[] clientAgents = new String[jwts.size()];
+        JwtTokens[] tokens = new JwtTokens[jwts.size()];
+        int i = 0;
+        for (Map.Entry<String, JwtProperties> entry : jwts.entrySet()) {
+            String clientAgent = entry.getKey();
+            JwtTokens jwtTokens = new JwtTokens(entry.getValue());
+            if (!jwtTokens.isAvailable()) {
+                log.error("Invalid jwt secret of client agent [{}], all its tokens are rejected until the secret "
+                    + "is fixed", clientAgent, jwtTokens.getFailure());
+            }
+            clientAgents[i] = clientAgent;
+            tokens[i] = jwtTokens;
+            i++;
+        }
+
+        this.route = new Route(clientAgents, tokens);
+    }
+
+    private JwtTokens find(String clientAgent) {
+        Route current = route;
+        if (current == null) {
+            return null;
+        }
+
+        String[] clientAgents = current.clientAgents();
+        for (int i = 0; i < clientAgents.length; i++) {
+            if (clientAgents[i].equals(clientAgent)) {
+                return current.tokens()[i];
+            }
+        }
+        return null;
+    }
+
+    private record Route(String[] clientAgents, JwtTokens[] tokens) {
     }
 
 }
@@ -0,0 +1,50 @@
+package top.cjf_rb.gateway.web.jwt;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import top.cjf_rb.gateway.pojo.prop.JwtProperties;
+
+import java.util.Map;
+
+/**
+ * 配置刷新(如 /actuator/refresh 或配置中心推送)涉及jwt配置时, 重新构建{@link JwtRouter}中的解析器
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class JwtSecretRotationListener {
+
+    private static final String JWTS_PREFIX = "app.gateway.jwts";
+
+    @Resource
+    private Environment environment;
+    @Resource
+    private JwtRouter jwtRouter;
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(key -> key.startsWith(JWTS_PREFIX))) {
+            return;
+        }
+
+        try {
+            // 直接从Environment绑定, 不依赖AppGatewayProperties的重新绑定顺序
+            Map<String, JwtProperties> jwts = Binder.get(environment)
+                .bind(JWTS_PREFIX, Bindable.mapOf(String.class, JwtProperties.class))
+                .orElse(Map.of());
+            jwtRouter.refresh(jwts);
+            log.info("Jwt parsers rebuilt for client agents {}", jwts.keySet());
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild jwt parsers, keep using the previous ones", e);
+        }
+    }
+
+}
@@ -1,26 +1,61 @@
 package top.cjf_rb.gateway.web.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import top.cjf_rb.gateway.pojo.prop.JwtProperties;
 
 import javax.crypto.SecretKey;
 
 /**
  * JWT 操作类
+ * <p>
+ * 密钥解码及解析器构建只在创建时执行一次, {@link JwtParser}不可变且线程安全, 可被所有请求共用;
+ * 密钥无效时不影响启动, 解析时抛出包含构建异常的{@link JwtException}, 该客户端的令牌全部被拒绝
  *
  * @author cjf
  * @since 1.0
  */
-@Setter
-@RequiredArgsConstructor
 public class JwtTokens {
 
     private final JwtProperties jwtProperties;
+    private final JwtParser parser;
+    private final RuntimeException failure;
+
+    public JwtTokens(JwtProperties jwtProperties) {
+        this.jwtProperties = jwtProperties;
+        JwtParser built = null;
+        RuntimeException error = null;
+        try {
+            SecretKey secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProperties.getSecret()));
+            built = Jwts.parser().verifyWith(secretKey).build();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        this.parser = built;
+        this.failure = error;
+    }
+
+    /**
+     * 密钥是否有效
+     *
+     * @return 解析器构建成功则true
+     */
+    public boolean isAvailable() {
+        return parser != null;
+    }
+
+    /**
+     * 解析器构建失败的原因
+     *
+     * @return 构建成功时为null
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
 
     /**
      * 解析jwt token
@@ -29,12 +64,10 @@ public class JwtTokens {
      * @return Claims
      */
     public Claims parse(String token) {
-        SecretKey secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProperties.getSecret()));
-
-        return Jwts.parser().verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        if (parser == null) {
+            throw new JwtException("Invalid jwt secret", failure);
+        }
+        return parser.parseSignedClaims(token).getPayload();
     }
 
 }
@@ -0,0 +1,78 @@
+package top.cjf_rb.gateway.web.jwt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+
+import java.time.Duration;
+
+/**
+ * <pre>
+ *     <h2>订阅令牌吊销通知</h2>
+ *     <li>消息格式: ${客户端}:${用户id}[:${吊销时间(毫秒)}], 由登出等操作发布</li>
+ *     <li>Redis断开后按退避间隔自动重新订阅, 期间不影响令牌校验</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class TokenRevocationListener {
+
+    @Resource
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    @Resource
+    private VerifiedTokenCache verifiedTokenCache;
+    @Resource
+    private AppGatewayProperties appGatewayProperties;
+
+    private Disposable subscription;
+
+    @PostConstruct
+    public void init() {
+        String channel = appGatewayProperties.getTokenCache().getRevocationChannel();
+        if (!StringUtils.hasText(channel)) {
+            return;
+        }
+
+        subscription = reactiveStringRedisTemplate.listenToChannel(channel)
+            .doOnNext(message -> this.onMessage(message.getMessage()))
+            .doOnError(e -> log.warn("Token revocation subscription lost, resubscribing", e))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split(":");
+        if (parts.length < 2) {
+            log.warn("Invalid token revocation message: {}", message);
+            return;
+        }
+
+        long revokedMillis = System.currentTimeMillis();
+        if (parts.length > 2) {
+            try {
+                revokedMillis = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid token revocation time: {}", message);
+            }
+        }
+        verifiedTokenCache.revoke(parts[0], parts[1], revokedMillis);
+    }
+
+}
@@ -0,0 +1,191 @@
+package top.cjf_rb.gateway.web.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * <pre>
+ *     <h2>已校验令牌的本地缓存</h2>
+ *     <li>key为 ${客户端}:SHA-256(令牌), 不在内存中保存令牌原文</li>
+ *     <li>缓存时间取令牌剩余有效期与 max-ttl 中较小者, 命中时跳过签名校验及解析</li>
+ *     <li>密钥轮换后, 用旧解析器校验的缓存不再命中, 需按新密钥重新校验</li>
+ *     <li>收到吊销通知后移除该用户的缓存, 并在 revocation-retention 内拒绝签发时间早于吊销时间的令牌</li>
+ *     <li>指标: gateway.token.cache, 标签 result(hit|miss|revoked)</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Slf4j
+public class VerifiedTokenCache {
+
+    private static final String METRIC_NAME = "gateway.token.cache";
+
+    private final JwtRouter jwtRouter;
+    private final boolean enabled;
+    /**
+     * 令牌hash -> 校验结果
+     */
+    private final Cache<String, Verified> verified;
+    /**
+     * ${客户端}:${用户id} -> 吊销时间(毫秒)
+     */
+    private final Cache<String, Long> revokedAt;
+    @Nullable
+    private final Counter hits;
+    @Nullable
+    private final Counter misses;
+    @Nullable
+    private final Counter revoked;
+
+    /**
+     * @param jwtRouter     各客户端的令牌解析
+     * @param properties    缓存配置
+     * @param meterRegistry 指标注册中心, 为空时不记录命中率
+     */
+    public VerifiedTokenCache(JwtRouter jwtRouter, AppGatewayProperties.TokenCache properties,
+                              @Nullable MeterRegistry meterRegistry) {
+        this.jwtRouter = jwtRouter;
+        this.enabled = properties.isEnabled();
+        long maxTtlNanos = properties.getMaxTtl().toNanos();
+        this.verified = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfter(Expiry.<String, Verified>creating(
+                (key, value) -> Duration.ofNanos(Math.min(value.ttlNanos(), maxTtlNanos))))
+            .build();
+        this.revokedAt = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getRevocationRetention())
+            .build();
+
+        if (meterRegistry != null) {
+            this.hits = this.counter(meterRegistry, "hit");
+            this.misses = this.counter(meterRegistry, "miss");
+            this.revoked = this.counter(meterRegistry, "revoked");
+        } else {
+            this.hits = null;
+            this.misses = null;
+            this.revoked = null;
+        }
+    }
+
+    /**
+     * 校验令牌, 缓存命中时不再校验签名
+     *
+     * @param clientAgent 客户端
+     * @param token       jwt token
+     * @return Claims
+     * @throws JwtException 令牌无效、过期或已吊销
+     */
+    public Claims verify(String clientAgent, String token) {
+        JwtTokens jwtTokens = jwtRouter.distribute(clientAgent);
+        String key = enabled ? clientAgent + ":" + sha256(token) : null;
+        if (key != null) {
+            Verified cached = verified.getIfPresent(key);
+            if (cached != null && cached.jwtTokens() == jwtTokens) {
+                this.checkRevoked(cached.userKey(), cached.claims());
+                increment(hits);
+                return cached.claims();
+            }
+        }
+
+        Claims claims = jwtTokens.parse(token);
+        String userKey = userKey(clientAgent, claims);
+        this.checkRevoked(userKey, claims);
+        increment(misses);
+
+        if (key != null) {
+            Date expiration = claims.getExpiration();
+            long ttlNanos = expiration == null ? Long.MAX_VALUE :
+                Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            if (ttlNanos > 0) {
+                verified.put(key, new Verified(claims, userKey, jwtTokens, ttlNanos));
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * 吊销用户的令牌
+     *
+     * @param clientAgent   客户端
+     * @param userId        用户id
+     * @param revokedMillis 吊销时间(毫秒), 签发时间早于该时间的令牌被拒绝
+     */
+    public void revoke(String clientAgent, String userId, long revokedMillis) {
+        String userKey = clientAgent.toUpperCase(Locale.ROOT) + ":" + userId;
+        revokedAt.asMap().merge(userKey, revokedMillis, Math::max);
+        verified.asMap().values().removeIf(value -> value.userKey().equals(userKey));
+        log.debug("Token revoked: {}", userKey);
+    }
+
+    /**
+     * 签发时间早于吊销时间的令牌视为已吊销, 令牌的签发时间只精确到秒, 因此吊销时间也按秒比较,
+     * 同一秒内重新登录签发的令牌不会被误拒绝; 没有签发时间的令牌无法判断, 只移除缓存
+     */
+    private void checkRevoked(String userKey, Claims claims) {
+        Long revokedMillis = revokedAt.getIfPresent(userKey);
+        Date issuedAt = claims.getIssuedAt();
+        if (revokedMillis == null || issuedAt == null) {
+            return;
+        }
+
+        if (issuedAt.getTime() < revokedMillis / 1000 * 1000) {
+            increment(revoked);
+            throw new JwtException("token revoked");
+        }
+    }
+
+    private static String userKey(String clientAgent, Claims claims) {
+        Set<String> audience = claims.getAudience();
+        String agent = audience == null || audience.isEmpty() ? clientAgent : audience.iterator().next();
+        return agent.toUpperCase(Locale.ROOT) + ":" + claims.getId();
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRIC_NAME)
+            .description("已校验令牌缓存的查询次数")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static void increment(@Nullable Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * @param userKey   ${客户端}:${用户id}
+     * @param jwtTokens 校验时使用的解析器, 轮换后不再命中
+     * @param ttlNanos  令牌的剩余有效期
+     */
+    private record Verified(Claims claims, String userKey, JwtTokens jwtTokens, long ttlNanos) {
+    }
+
+}
@@ -0,0 +1,175 @@
+package top.cjf_rb.gateway.web.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <pre>
+ *     <h2>网关限流</h2>
+ *     <li>每个 路由+限流维度 一个本地令牌桶, 请求时只访问本地, 不访问Redis</li>
+ *     <li>每隔 sync-interval 将各桶的消耗量通过响应式客户端批量累加到Redis的窗口计数,
+ *     并按返回的当前及上一窗口的全局消耗量扣除其他节点的消耗, 多节点合计接近配置的限额</li>
+ *     <li>Redis不可用时只按本地令牌桶限流, 未同步的消耗量保留到下次同步</li>
+ *     <li>指标: gateway.rate.limit, 标签 route/result(allowed|rejected)</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class GatewayRateLimiter {
+
+    private static final String KEY_PREFIX = "app:gateway:rate-limit:";
+    private static final String METRIC_NAME = "gateway.rate.limit";
+    /**
+     * 同步并发的Redis调用数, Lettuce在同一连接上自动流水线发送
+     */
+    private static final int SYNC_CONCURRENCY = 64;
+
+    /**
+     * KEYS[1]: 窗口计数key, KEYS[2]: 上一窗口计数key, ARGV[1]: 本节点新增的消耗量, ARGV[2]: 过期时间(ms)
+     * 返回 {窗口内所有节点的消耗量, 上一窗口内所有节点的消耗量}
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> SYNC_SCRIPT = (RedisScript) RedisScript.of("""
+            local total = redis.call('INCRBY', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            return {total, previous}
+            """, List.class);
+
+    @Resource
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    @Resource
+    private AppGatewayProperties appGatewayProperties;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * ${路由}:${限流维度} -> 令牌桶
+     */
+    private Cache<String, TokenBucket> buckets;
+    private Disposable synchronizer;
+
+    @PostConstruct
+    public void init() {
+        AppGatewayProperties.RateLimit properties = appGatewayProperties.getRateLimit();
+        buckets = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+        synchronizer = Flux.interval(properties.getSyncInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> this.sync().onErrorResume(ex -> {
+                log.warn("Rate limit sync failed", ex);
+                return Mono.empty();
+            }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (synchronizer != null) {
+            synchronizer.dispose();
+        }
+    }
+
+    /**
+     * 申请一次
+     *
+     * @param route   路由id
+     * @param key     限流维度, 如用户、IP
+     * @param permits 窗口内允许的次数
+     * @param window  窗口时长
+     * @return 限流结果
+     */
+    public RateLimitDecision tryAcquire(String route, String key, long permits, Duration window) {
+        long windowMillis = window.toMillis();
+        String bucketKey = route + ":" + key;
+        TokenBucket bucket = buckets.getIfPresent(bucketKey);
+        if (bucket == null || bucket.capacity() != permits || bucket.windowMillis() != windowMillis) {
+            // 首次访问, 或规则变更(如刷新路由配置)后重新创建
+            bucket = buckets.asMap().compute(bucketKey, (k, existing) ->
+                existing != null && existing.capacity() == permits && existing.windowMillis() == windowMillis ?
+                    existing : new TokenBucket(permits, windowMillis));
+        }
+
+        boolean allowed = bucket.tryConsume();
+        this.count(route, allowed);
+        return new RateLimitDecision(allowed, bucket.remaining(), allowed ? 0 : bucket.millisToNextToken());
+    }
+
+    /**
+     * 与Redis同步各令牌桶的消耗量
+     */
+    private Mono<Void> sync() {
+        long now = System.currentTimeMillis();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        return Flux.fromIterable(buckets.asMap().entrySet())
+            .flatMap(entry -> this.sync(entry, now, failure), SYNC_CONCURRENCY)
+            .then(Mono.fromRunnable(() -> {
+                Throwable ex = failure.get();
+                if (ex != null) {
+                    log.warn("Rate limit sync with redis failed, limiting locally only: {}", ex.toString());
+                }
+            }));
+    }
+
+    private Mono<List<Long>> sync(Map.Entry<String, TokenBucket> entry, long now, AtomicReference<Throwable> failure) {
+        TokenBucket bucket = entry.getValue();
+        long drained = bucket.drain();
+        // 同步间隔内未被访问
+        if (drained < 0) {
+            return Mono.empty();
+        }
+
+        long windowMillis = bucket.windowMillis();
+        long index = now / windowMillis;
+        // hash tag保证集群模式下两个窗口的key在同一槽位
+        String keyPrefix = KEY_PREFIX + "{" + entry.getKey() + "}:";
+        List<String> keys = List.of(keyPrefix + index, keyPrefix + (index - 1));
+        List<String> args = List.of(String.valueOf(drained), String.valueOf(windowMillis * 2));
+        return reactiveStringRedisTemplate.execute(SYNC_SCRIPT, keys, args)
+            .next()
+            .doOnNext(totals -> bucket.reconcile(index, drained, totals.get(0), totals.get(1)))
+            .onErrorResume(ex -> {
+                bucket.restore(drained);
+                failure.set(ex);
+                return Mono.empty();
+            });
+    }
+
+    private void count(String route, boolean allowed) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Counter.builder(METRIC_NAME)
+            .description("网关限流请求数")
+            .tag("route", route)
+            .tag("result", allowed ? "allowed" : "rejected")
+            .register(meterRegistry)
+            .increment();
+    }
+
+}
@@ -0,0 +1,13 @@
+package top.cjf_rb.gateway.web.ratelimit;
+
+/**
+ * 限流结果
+ *
+ * @param allowed          是否放行
+ * @param remaining        剩余可用次数
+ * @param retryAfterMillis 被拒绝时, 建议的重试等待时长(毫秒)
+ * @author cjf
+ * @since 1.0
+ */
+public record RateLimitDecision(boolean allowed, long remaining, long retryAfterMillis) {
+}
@@ -0,0 +1,187 @@
+package top.cjf_rb.gateway.web.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * <pre>
+ *     <h2>本地令牌桶</h2>
+ *     <li>容量为窗口内的请求数, 按 容量/窗口 的速率补充</li>
+ *     <li>记录本节点未同步的消耗量, 同步时扣除其他节点在当前及上一窗口内新增的消耗, 使各节点合计接近全局限额</li>
+ *     <li>扣除时令牌可以为负, 欠下的令牌由之后的补充偿还, 不会因截断而漏扣其他节点的消耗</li>
+ * </pre>
+ *
+ * @author cjf
+ * @since 1.0
+ */
+final class TokenBucket {
+
+    private final long capacity;
+    private final long windowMillis;
+    /**
+     * 每纳秒补充的令牌数
+     */
+    private final double refillPerNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 剩余的令牌数, 扣除其他节点的消耗后可能为负
+     */
+    private double tokens;
+    private long lastRefillNanos;
+    /**
+     * 自上次同步以来本节点消耗的令牌数
+     */
+    private long unsynced;
+    /**
+     * 自上次同步以来是否被访问过
+     */
+    private boolean dirty;
+    /**
+     * 当前同步窗口的序号
+     */
+    private long windowIndex = -1;
+    /**
+     * 当前窗口内本节点已同步的消耗量
+     */
+    private long ownTotal;
+    /**
+     * 当前窗口内其他节点已扣除的消耗量
+     */
+    private long othersTotal;
+    /**
+     * 上一窗口内本节点已同步的消耗量
+     */
+    private long previousOwnTotal;
+    /**
+     * 上一窗口内其他节点已扣除的消耗量
+     */
+    private long previousOthersTotal;
+
+    TokenBucket(long capacity, long windowMillis) {
+        this(capacity, windowMillis, System::nanoTime);
+    }
+
+    TokenBucket(long capacity, long windowMillis, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.refillPerNanos = (double) capacity / TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * 申请一个令牌
+     *
+     * @return 申请成功则true
+     */
+    synchronized boolean tryConsume() {
+        this.refill();
+        dirty = true;
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens -= 1;
+        unsynced++;
+        return true;
+    }
+
+    /**
+     * 剩余的令牌数
+     */
+    synchronized long remaining() {
+        this.refill();
+        return Math.max((long) tokens, 0);
+    }
+
+    /**
+     * 下一个令牌可用前需要等待的时长(毫秒)
+     */
+    synchronized long millisToNextToken() {
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNanos / 1_000_000);
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long windowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * 取出未同步的消耗量, 无访问时返回-1
+     */
+    synchronized long drain() {
+        if (!dirty) {
+            return -1;
+        }
+
+        long drained = unsynced;
+        unsynced = 0;
+        dirty = false;
+        return drained;
+    }
+
+    /**
+     * 同步失败, 归还取出的消耗量等待下次同步
+     */
+    synchronized void restore(long drained) {
+        unsynced += drained;
+        dirty = true;
+    }
+
+    /**
+     * 按全局消耗量校正本地令牌
+     * <p>
+     * 其他节点在窗口切换前的消耗, 可能在本节点进入新窗口后才同步到上一窗口的计数, 因此同时比较上一窗口
+     *
+     * @param index         同步窗口序号
+     * @param drained       本次同步的本节点消耗量
+     * @param globalTotal   窗口内所有节点的消耗量
+     * @param previousTotal 上一窗口内所有节点的消耗量
+     */
+    synchronized void reconcile(long index, long drained, long globalTotal, long previousTotal) {
+        if (index == windowIndex + 1) {
+            previousOwnTotal = ownTotal;
+            previousOthersTotal = othersTotal;
+            ownTotal = 0;
+            othersTotal = 0;
+        } else if (index != windowIndex) {
+            previousOwnTotal = 0;
+            previousOthersTotal = 0;
+            ownTotal = 0;
+            othersTotal = 0;
+        }
+        windowIndex = index;
+
+        ownTotal += drained;
+        long deducted = 0;
+        long others = Math.max(globalTotal - ownTotal, 0);
+        if (others > othersTotal) {
+            deducted += others - othersTotal;
+            othersTotal = others;
+        }
+        long previousOthers = Math.max(previousTotal - previousOwnTotal, 0);
+        if (previousOthers > previousOthersTotal) {
+            deducted += previousOthers - previousOthersTotal;
+            previousOthersTotal = previousOthers;
+        }
+        if (deducted > 0) {
+            this.refill();
+            tokens -= deducted;
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNanos);
+        lastRefillNanos = now;
+    }
+
+}
@@ -0,0 +1,125 @@
+package top.cjf_rb.gateway.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 前缀树与{@link AntPathMatcher}的一致性, 随机生成模式和路径, 覆盖开头/结尾'/'、空段及各种通配符
+ *
+ * @author cjf
+ * @since 1.0
+ */
+class PathPatternTrieTest {
+
+    private static final long SEED = 20240318L;
+    private static final int ITERATIONS = 200_000;
+    private static final String[] PATTERN_SEGMENTS = {"a", "b", "x", "*", "**", "a*", "?b", "*b*"};
+    private static final String[] PATH_SEGMENTS = {"a", "b", "x", "ab", "xb", "bb", "abc"};
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void trailingStarAfterDoubleStarDoesNotMatchTrailingSeparator() {
+        this.assertSameAsAntPathMatcher(List.of("/api/**/*"), "/api/x/");
+        this.assertSameAsAntPathMatcher(List.of("/open/**/*"), "/open/a/b/");
+        this.assertSameAsAntPathMatcher(List.of("/**/*"), "/x/");
+        this.assertSameAsAntPathMatcher(List.of("/api/*"), "/api/");
+        this.assertSameAsAntPathMatcher(List.of("/api/*/"), "/api/");
+        this.assertSameAsAntPathMatcher(List.of("/api/**/*", "/api/*"), "/api/");
+    }
+
+    @Test
+    void singlePatternMatchesLikeAntPathMatcher() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ITERATIONS; i++) {
+            this.assertSameAsAntPathMatcher(List.of(this.pattern(random)), this.path(random));
+        }
+    }
+
+    @Test
+    void multiplePatternsMatchLikeAntPathMatcher() {
+        Random random = new Random(SEED + 1);
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            List<String> patterns = new ArrayList<>();
+            int count = 2 + random.nextInt(4);
+            for (int j = 0; j < count; j++) {
+                patterns.add(this.pattern(random));
+            }
+            for (int j = 0; j < 4; j++) {
+                this.assertSameAsAntPathMatcher(patterns, this.path(random));
+            }
+        }
+    }
+
+    @Test
+    void urisMatcherMatchesLikeAntPathMatcher() {
+        Random random = new Random(SEED + 2);
+        for (int i = 0; i < ITERATIONS / 20; i++) {
+            Set<String> patterns = new HashSet<>();
+            int count = 1 + random.nextInt(4);
+            for (int j = 0; j < count; j++) {
+                patterns.add(this.pattern(random));
+            }
+            UrisMatcher urisMatcher = new UrisMatcher(patterns);
+            for (int j = 0; j < 20; j++) {
+                String path = this.path(random);
+                boolean expected = patterns.stream()
+                                           .anyMatch(pattern -> antPathMatcher.match(pattern, path));
+                // 第二次命中结果缓存
+                assertThat(urisMatcher.match(path)).as("patterns %s, path %s", patterns, path)
+                                                   .isEqualTo(expected);
+                assertThat(urisMatcher.match(path)).as("cached, patterns %s, path %s", patterns, path)
+                                                   .isEqualTo(expected);
+            }
+        }
+    }
+
+    private void assertSameAsAntPathMatcher(List<String> patterns, String path) {
+        PathPatternTrie trie = new PathPatternTrie();
+        patterns.forEach(trie::add);
+        boolean expected = patterns.stream()
+                                   .anyMatch(pattern -> antPathMatcher.match(pattern, path));
+        assertThat(trie.match(path)).as("patterns %s, path %s", patterns, path)
+                                    .isEqualTo(expected);
+    }
+
+    /**
+     * 1~4段, 大多以'/'开头, 随机以'/'结尾, 偶尔出现连续的'/'
+     */
+    private String pattern(Random random) {
+        return this.join(random, PATTERN_SEGMENTS, 1 + random.nextInt(4));
+    }
+
+    /**
+     * 0~5段, 0段时为'/'
+     */
+    private String path(Random random) {
+        return this.join(random, PATH_SEGMENTS, random.nextInt(6));
+    }
+
+    private String join(Random random, String[] segments, int count) {
+        StringBuilder builder = new StringBuilder();
+        if (random.nextInt(8) != 0) {
+            builder.append('/');
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(random.nextInt(10) == 0 ? "//" : "/");
+            }
+            builder.append(segments[random.nextInt(segments.length)]);
+        }
+        if (builder.isEmpty() || random.nextInt(3) == 0) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,200 @@
+package top.cjf_rb.gateway.web.accesslog;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 环形缓冲的回绕与缓冲已满时的丢弃
+ *
+ * @author cjf
+ * @since 1.0
+ */
+class AccessLogBufferTest {
+
+    private static final Pattern TRACE_ID = Pattern.compile("\"traceId\":\"([^\"]+)\"");
+
+    private final Logger accessLog = (Logger) LoggerFactory.getLogger(AccessLogBuffer.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppGatewayProperties properties = new AppGatewayProperties();
+    private AccessLogBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLog.addAppender(appender);
+        accessLog.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.destroy();
+        }
+        accessLog.detachAppender(appender);
+        accessLog.setLevel(null);
+    }
+
+    @Test
+    void fullBufferDropsNewEntriesAndKeepsBufferedOnes() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 后台线程写第一批时阻塞, 期间写入的日志只能留在缓冲中
+        ListAppender<ILoggingEvent> blocking = new ListAppender<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                super.append(event);
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blocking.start();
+        accessLog.addAppender(blocking);
+        try {
+            this.start(8, 256, Duration.ofMillis(1));
+            buffer.record("GET", "/first", "route", 200, 0, 1, "first");
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < 8 + 5; i++) {
+                buffer.record("GET", "/api", "route", 200, 10, 1, "t" + i);
+            }
+            assertThat(meterRegistry.counter("gateway.access.log.dropped").count()).isEqualTo(5);
+            assertThat(meterRegistry.get("gateway.access.log.pending").gauge().value()).isEqualTo(8);
+        } finally {
+            release.countDown();
+        }
+
+        // 关闭时写完缓冲中的日志, 被丢弃的是缓冲已满之后的
+        buffer.destroy();
+        accessLog.detachAppender(blocking);
+        List<String> expected = new ArrayList<>(List.of("first"));
+        for (int i = 0; i < 8; i++) {
+            expected.add("t" + i);
+        }
+        assertThat(this.traceIds()).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void sequencesWrapAroundSlotsInOrder() {
+        // 批大小与缓冲大小互质, 批次跨越缓冲末尾
+        this.start(8, 3, Duration.ofMillis(1));
+        List<String> expected = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 8; i++) {
+                String traceId = round + "-" + i;
+                buffer.record("POST", "/api/\"quoted\"", null, 201, i, round, traceId);
+                expected.add(traceId);
+            }
+            this.awaitWritten(expected.size());
+        }
+
+        assertThat(this.traceIds()).containsExactlyElementsOf(expected);
+        assertThat(meterRegistry.counter("gateway.access.log.dropped").count()).isZero();
+        assertThat(this.lines()).allSatisfy(line -> assertThat(line).contains("\"path\":\"/api/\\\"quoted\\\"\"")
+            .contains("\"route\":null")
+            .contains("\"status\":201"));
+    }
+
+    @Test
+    void concurrentWritersAreEitherWrittenOnceOrDropped() throws InterruptedException {
+        this.start(16, 5, Duration.ofMillis(1));
+        int threads = 4;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    buffer.record("GET", "/api", "route", 200, 0, 0, thread + "-" + i);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        buffer.destroy();
+
+        List<String> traceIds = this.traceIds();
+        Set<String> unique = new HashSet<>(traceIds);
+        long dropped = (long) meterRegistry.counter("gateway.access.log.dropped").count();
+        assertThat(unique).hasSameSizeAs(traceIds);
+        assertThat(traceIds.size() + dropped).isEqualTo((long) threads * perThread);
+    }
+
+    private void start(int bufferSize, int batchSize, Duration flushInterval) {
+        AppGatewayProperties.AccessLog accessLogProperties = properties.getAccessLog();
+        accessLogProperties.setBufferSize(bufferSize);
+        accessLogProperties.setBatchSize(batchSize);
+        accessLogProperties.setFlushInterval(flushInterval);
+        buffer = new AccessLogBuffer();
+        ReflectionTestUtils.setField(buffer, "appGatewayProperties", properties);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", meterRegistry);
+        buffer.init();
+    }
+
+    private void awaitWritten(int count) {
+        await().atMost(Duration.ofSeconds(5))
+            .pollDelay(Duration.ZERO)
+            .pollInterval(Duration.ofMillis(1))
+            .until(() -> this.traceIds().size() == count);
+    }
+
+    private List<String> lines() {
+        List<ILoggingEvent> events;
+        // 后台线程在appender上同步追加
+        synchronized (appender) {
+            events = List.copyOf(appender.list);
+        }
+        List<String> lines = new ArrayList<>();
+        for (ILoggingEvent event : events) {
+            lines.addAll(List.of(event.getFormattedMessage().split("\n")));
+        }
+        return lines;
+    }
+
+    private List<String> traceIds() {
+        List<String> traceIds = new ArrayList<>();
+        for (String line : this.lines()) {
+            Matcher matcher = TRACE_ID.matcher(line);
+            assertThat(matcher.find()).as(line).isTrue();
+            traceIds.add(matcher.group(1));
+        }
+        return traceIds;
+    }
+
+}
@@ -0,0 +1,75 @@
+package top.cjf_rb.gateway.web.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+import top.cjf_rb.gateway.web.ratelimit.GatewayRateLimiter;
+import top.cjf_rb.gateway.web.ratelimit.RateLimitDecision;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 按ip限流时, 按可信代理层数从X-Forwarded-For取客户端IP
+ *
+ * @author cjf
+ * @since 1.0
+ */
+class RateLimitGatewayFilterFactoryTest {
+
+    private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.1", 443);
+
+    private final GatewayRateLimiter gatewayRateLimiter = mock(GatewayRateLimiter.class);
+
+    @Test
+    void clientIpIsTakenFromForwardedForBehindTrustedProxy() {
+        // 客户端伪造的第一个值不可信, 取可信代理追加的值
+        this.filter(1, MockServerHttpRequest.get("/api")
+            .remoteAddress(PROXY)
+            .header("X-Forwarded-For", "1.1.1.1, 203.0.113.7"));
+
+        verify(gatewayRateLimiter).tryAcquire(anyString(), eq("ip:203.0.113.7"), anyLong(), any(Duration.class));
+    }
+
+    @Test
+    void remoteAddressIsUsedWithoutForwardedFor() {
+        this.filter(1, MockServerHttpRequest.get("/api")
+            .remoteAddress(PROXY));
+
+        verify(gatewayRateLimiter).tryAcquire(anyString(), eq("ip:10.0.0.1"), anyLong(), any(Duration.class));
+    }
+
+    @Test
+    void forwardedForIsIgnoredWithoutTrustedProxies() {
+        this.filter(0, MockServerHttpRequest.get("/api")
+            .remoteAddress(PROXY)
+            .header("X-Forwarded-For", "203.0.113.7"));
+
+        verify(gatewayRateLimiter).tryAcquire(anyString(), eq("ip:10.0.0.1"), anyLong(), any(Duration.class));
+    }
+
+    private void filter(int trustedProxies, MockServerHttpRequest.BaseBuilder<?> request) {
+        when(gatewayRateLimiter.tryAcquire(anyString(), anyString(), anyLong(), any(Duration.class)))
+            .thenReturn(new RateLimitDecision(true, 1, 0));
+        AppGatewayProperties properties = new AppGatewayProperties();
+        properties.getRateLimit().setTrustedProxies(trustedProxies);
+        RateLimitGatewayFilterFactory factory = new RateLimitGatewayFilterFactory(gatewayRateLimiter, properties);
+
+        RateLimitGatewayFilterFactory.Config config = new RateLimitGatewayFilterFactory.Config();
+        config.setKeyBy(RateLimitGatewayFilterFactory.Config.KEY_BY_IP);
+        GatewayFilter filter = factory.apply(config);
+        filter.filter(MockServerWebExchange.from(request), exchange -> Mono.empty()).block();
+    }
+
+}
@@ -0,0 +1,71 @@
+package top.cjf_rb.gateway.web.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.Test;
+import top.cjf_rb.gateway.pojo.prop.AppGatewayProperties;
+import top.cjf_rb.gateway.pojo.prop.JwtProperties;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 密钥轮换后不再接受旧密钥签发的令牌
+ *
+ * @author cjf
+ * @since 1.0
+ */
+class JwtRouterTest {
+
+    private static final String CLIENT_AGENT = "ADMIN";
+
+    private final SecretKey oldKey = Jwts.SIG.HS512.key().build();
+    private final SecretKey newKey = Jwts.SIG.HS512.key().build();
+    private final String oldToken = token(oldKey);
+
+    @Test
+    void invalidRotatedSecretRejectsTokensInsteadOfKeepingOldKey() {
+        JwtRouter router = new JwtRouter(jwts(secret(oldKey)));
+        assertThat(router.distribute(CLIENT_AGENT).parse(oldToken).getId()).isEqualTo("10000");
+
+        router.refresh(jwts("not base64 !"));
+
+        assertThatThrownBy(() -> router.distribute(CLIENT_AGENT).parse(oldToken)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void cachedTokenIsVerifiedAgainWithRotatedSecret() {
+        JwtRouter router = new JwtRouter(jwts(secret(oldKey)));
+        VerifiedTokenCache cache = new VerifiedTokenCache(router, new AppGatewayProperties.TokenCache(), null);
+        assertThat(cache.verify(CLIENT_AGENT, oldToken).getId()).isEqualTo("10000");
+
+        router.refresh(jwts(secret(newKey)));
+
+        assertThatThrownBy(() -> cache.verify(CLIENT_AGENT, oldToken)).isInstanceOf(JwtException.class);
+        assertThat(cache.verify(CLIENT_AGENT, token(newKey)).getId()).isEqualTo("10000");
+    }
+
+    private static Map<String, JwtProperties> jwts(String secret) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(secret);
+        properties.setExpires(Duration.ofHours(12));
+        return Map.of(CLIENT_AGENT, properties);
+    }
+
+    private static String secret(SecretKey key) {
+        return Encoders.BASE64.encode(key.getEncoded());
+    }
+
+    private static String token(SecretKey key) {
+        return Jwts.builder().id("10000").audience().add(CLIENT_AGENT).and()
+            .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis())).signWith(key)
+            .compact();
+    }
+
+}
@@ -0,0 +1,108 @@
+package top.cjf_rb.gateway.web.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 多节点按同步结果校正后, 合计放行的请求数接近全局限额
+ *
+ * @author cjf
+ * @since 1.0
+ */
+class TokenBucketTest {
+
+    private static final int NODES = 4;
+    private static final long PERMITS = 100;
+    private static final long WINDOW_MILLIS = 1000;
+
+    @Test
+    void deductionBelowZeroIsRepaidByLaterRefills() {
+        long[] nanos = {0};
+        TokenBucket bucket = new TokenBucket(PERMITS, WINDOW_MILLIS, () -> nanos[0]);
+
+        // 其他节点已消耗两倍限额
+        bucket.reconcile(0, 0, 2 * PERMITS, 0);
+        assertThat(bucket.remaining()).isZero();
+        assertThat(bucket.tryConsume()).isFalse();
+        assertThat(bucket.millisToNextToken()).isEqualTo(1010);
+
+        // 一个窗口只补回欠下的令牌
+        nanos[0] = TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS);
+        assertThat(bucket.tryConsume()).isFalse();
+        nanos[0] = TimeUnit.MILLISECONDS.toNanos(2 * WINDOW_MILLIS + 10);
+        assertThat(bucket.tryConsume()).isTrue();
+    }
+
+    @Test
+    void previousWindowIsDeductedAfterWindowSwitch() {
+        long[] nanos = {0};
+        TokenBucket bucket = new TokenBucket(PERMITS, WINDOW_MILLIS, () -> nanos[0]);
+
+        bucket.reconcile(0, 0, 10, 0);
+        assertThat(bucket.remaining()).isEqualTo(PERMITS - 10);
+        // 进入新窗口后, 其他节点在上一窗口又同步了30
+        bucket.reconcile(1, 0, 0, 40);
+        assertThat(bucket.remaining()).isEqualTo(PERMITS - 40);
+        // 已扣除的部分不重复扣除
+        bucket.reconcile(1, 0, 0, 40);
+        assertThat(bucket.remaining()).isEqualTo(PERMITS - 40);
+    }
+
+    @Test
+    void combinedRateOfNodesStaysNearLimit() {
+        // 同步间隔与窗口相同, 5秒内的突发
+        assertThat(this.simulate(new Random(1), 5_000, 1_000)).isBetween(5 * PERMITS, 8 * PERMITS);
+        assertThat(this.simulate(new Random(2), 5_000, 100)).isBetween(5 * PERMITS, 8 * PERMITS);
+
+        // 长期的合计速率
+        long seconds = 60;
+        assertThat(this.simulate(new Random(3), seconds * 1_000, 1_000) / (double) seconds)
+            .isBetween(PERMITS * 0.9, PERMITS * 1.15);
+        assertThat(this.simulate(new Random(4), seconds * 1_000, 100) / (double) seconds)
+            .isBetween(PERMITS * 0.9, PERMITS * 1.15);
+    }
+
+    /**
+     * 各节点每毫秒申请一次, 按错开的相位同步到共享的窗口计数
+     *
+     * @return 所有节点合计放行的请求数
+     */
+    private long simulate(Random random, long durationMillis, long syncIntervalMillis) {
+        long[] nanos = {0};
+        TokenBucket[] buckets = new TokenBucket[NODES];
+        long[] phases = new long[NODES];
+        for (int i = 0; i < NODES; i++) {
+            buckets[i] = new TokenBucket(PERMITS, WINDOW_MILLIS, () -> nanos[0]);
+            phases[i] = random.nextLong(syncIntervalMillis);
+        }
+        // 窗口序号 -> 所有节点的消耗量
+        Map<Long, Long> redis = new HashMap<>();
+
+        long allowed = 0;
+        for (long millis = 0; millis < durationMillis; millis++) {
+            nanos[0] = TimeUnit.MILLISECONDS.toNanos(millis);
+            for (int i = 0; i < NODES; i++) {
+                TokenBucket bucket = buckets[i];
+                if (bucket.tryConsume()) {
+                    allowed++;
+                }
+                if (millis > 0 && (millis - phases[i]) % syncIntervalMillis == 0) {
+                    long drained = bucket.drain();
+                    if (drained >= 0) {
+                        long index = millis / WINDOW_MILLIS;
+                        long total = redis.merge(index, drained, Long::sum);
+                        bucket.reconcile(index, drained, total, redis.getOrDefault(index - 1, 0L));
+                    }
+                }
+            }
+        }
+        return allowed;
+    }
+
+}